@@ -0,0 +1,112 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The former recursive, String keyed tree builder, kept as the baseline of the tree benchmarks.
+ */
+final class LegacyWorkTreeBuilder {
+
+    private LegacyWorkTreeBuilder() {
+    }
+
+    static List<WorkTree> build( Map<String, WorkItem> workItemMap ) {
+        Map<String, String> childRef = buildChildReference( workItemMap );
+
+        List<WorkTree> rootNodeTree = new ArrayList<>();
+        getRootLevelNodes( workItemMap.values(), childRef ).forEach(id -> {
+            WorkTree nodeTree = buildNodeTree( workItemMap.get( id ), workItemMap, null, 0 );
+            padNodeTree( nodeTree, getMaxDepth( nodeTree ));
+            rootNodeTree.add( nodeTree );
+        });
+
+        return rootNodeTree;
+    }
+
+    static Map<String, String> buildChildReference(Map<String, WorkItem> workItemMap) {
+        Map<String, String> childRef = new HashMap<>();
+        workItemMap.values().stream().filter(item -> item.getChildren() != null).forEach(item -> {
+            for (String id : item.getChildren()) {
+                childRef.put(id, item.getId());
+            }
+        });
+
+        return childRef;
+    }
+
+    private static List<String> getRootLevelNodes(Collection<WorkItem> workItemList, Map<String, String> childRef) {
+        List<String> rootNodes = new ArrayList<>();
+
+        workItemList.forEach(item -> {
+            if (!childRef.containsKey( item.getId() )) {
+                rootNodes.add( item.getId() );
+            }
+        });
+
+        return rootNodes;
+    }
+
+    private static void padNodeTree(WorkTree node, int targetDepth) {
+        if( node != null && node.getChildren().isEmpty() && node.getLevel() != targetDepth ) {
+            padNodeDepth( node, node.getExternalId(), node.getLevel(), targetDepth );
+        }
+
+        node.getChildren().forEach(i -> padNodeTree(i, targetDepth));
+    }
+
+    private static void padNodeDepth( WorkTree node, String id, int currentDepth, int targetDepth ) {
+        WorkTree pad = new WorkTree();
+        pad.setLevel( currentDepth + 1 );
+        pad.setParentId( id );
+        pad.setExternalId("P" + id + "-L" + ( currentDepth + 1 ));
+        pad.setChildren( new ArrayList<>());
+
+        node.getChildren().add(pad);
+
+        if( currentDepth + 1 < targetDepth ) {
+            padNodeDepth( pad, id, currentDepth + 1, targetDepth );
+        }
+
+    }
+
+    private static WorkTree buildNodeTree( WorkItem sourceNode, Map<String, WorkItem> workItemMap, String parentId, int level ) {
+        int nextLevel = level + 1;
+
+        WorkTree nodeTree = new WorkTree();
+        nodeTree.setExternalId( sourceNode.getId() );
+        nodeTree.setParentId( parentId );
+
+        if( sourceNode.getChildren() != null ) {
+            List<WorkTree> childElements = new ArrayList<>();
+            sourceNode.getChildren().forEach(id -> {
+                WorkItem workItem = workItemMap.get( id );
+                if( workItem != null ) {
+                    WorkTree childElemTree = buildNodeTree(workItem, workItemMap, nodeTree.getExternalId(), nextLevel);
+                    childElemTree.setLevel(nextLevel);
+                    childElements.add(childElemTree);
+                }
+            });
+            nodeTree.setChildren( childElements );
+        }
+
+        return nodeTree;
+    }
+
+    private static int getMaxDepth( WorkTree treeNode ) {
+        var ref = new Object() {
+            int depth = treeNode.getLevel();
+        };
+
+        treeNode.getChildren().stream().mapToInt(LegacyWorkTreeBuilder::getMaxDepth).filter(childDepth -> childDepth > ref.depth)
+                .forEach(childDepth -> ref.depth = childDepth);
+
+        return ref.depth;
+    }
+}
@@ -0,0 +1,147 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.azd.workitemtracking.types.WorkItemList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic, linked sprint datasets for the benchmarks.
+ *
+ * Items follow the Epic / Feature / Story / Task hierarchy with a random fan out, so trees are uneven and
+ * most leaves need padding.  The same seed always produces the same dataset.
+ *
+ * The Azure side is generated as the JSON a work items batch call returns and parsed into the azd types,
+ * so the mapping benchmarks run offline against the same object graph the client library produces.
+ */
+final class WorkItemFixtures {
+
+    static final String ORGANIZATION = "noda";
+
+    private static final WorkItemType[] LEVELS = { WorkItemType.EPIC, WorkItemType.FEATURE, WorkItemType.STORY, WorkItemType.TASK };
+
+    private static final String[] AZURE_TYPES = { "Epic", "Feature", "User Story", "Task" };
+
+    private static final String[] AZURE_STATES = { "New", "Active", "Closed" };
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure( DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false );
+
+    private WorkItemFixtures() {
+    }
+
+    static Map<String, WorkItem> linkedItems( int size ) {
+        Random random = new Random( 42 );
+        Map<String, WorkItem> items = new LinkedHashMap<>();
+        Map<String, List<String>> children = new LinkedHashMap<>();
+
+        int nextId = 10000;
+        List<String> parents = new ArrayList<>();
+        List<Integer> parentLevels = new ArrayList<>();
+        while( items.size() < size ) {
+            // Roughly one in twenty items starts a new epic, the others hang below a random open parent.
+            int level = 0;
+            String parent = null;
+            if( !parents.isEmpty() && random.nextInt( 20 ) != 0 ) {
+                int pick = random.nextInt( parents.size() );
+                parent = parents.get( pick );
+                level = parentLevels.get( pick ) + 1;
+            }
+
+            String id = Integer.toString( nextId++ );
+            items.put( id, WorkItem.builder()
+                    .id( id )
+                    .parent( parent )
+                    .name( LEVELS[level].name() + " " + id )
+                    .type( LEVELS[level] )
+                    .state( WorkItemState.values()[random.nextInt( 3 )] )
+                    .iteration( "Noda\\Sprint " + ( 1 + random.nextInt( 4 )))
+                    .build());
+            children.put( id, new ArrayList<>() );
+            if( parent != null ) {
+                children.get( parent ).add( id );
+            }
+            if( level < LEVELS.length - 1 ) {
+                parents.add( id );
+                parentLevels.add( level );
+            }
+        }
+
+        items.replaceAll((id, item) -> item.toBuilder().children( children.get( id )).build());
+        return items;
+    }
+
+    /**
+     * The generated items as the Azure DevOps response JSON, either with expanded relations or with the
+     * System.Parent field of a field projection.
+     */
+    static String azureWorkItemsJson( int size, boolean relations ) {
+        ArrayNode value = MAPPER.createArrayNode();
+        for (WorkItem item : linkedItems( size ).values()) {
+            ObjectNode azureItem = value.addObject();
+            azureItem.put( "id", Integer.parseInt( item.getId() ));
+            azureItem.put( "rev", 1 );
+            azureItem.put( "url", workItemUrl( item.getId() ));
+
+            ObjectNode fields = azureItem.putObject( "fields" );
+            fields.put( "System.Id", Integer.parseInt( item.getId() ));
+            fields.put( "System.Title", item.getName() );
+            fields.put( "System.WorkItemType", AZURE_TYPES[item.getType().ordinal()] );
+            fields.put( "System.TeamProject", "Noda" );
+            fields.put( "System.State", AZURE_STATES[item.getState().ordinal()] );
+            fields.put( "System.IterationPath", item.getIteration() );
+
+            if( !relations ) {
+                if( item.getParent() != null ) {
+                    fields.put( "System.Parent", Integer.parseInt( item.getParent() ));
+                }
+                continue;
+            }
+
+            ArrayNode links = azureItem.putArray( "relations" );
+            if( item.getParent() != null ) {
+                addRelation( links, "System.LinkTypes.Hierarchy-Reverse", "Parent", workItemUrl( item.getParent() ));
+            }
+            item.getChildren().forEach(childId -> addRelation( links, "System.LinkTypes.Hierarchy-Forward", "Child", workItemUrl( childId )));
+            addRelation( links, "ArtifactLink", "Fixed in Commit",
+                    "vstfs:///Git/Commit/3a8196f0%2F" + item.getId() + "%2F9" + item.getId() );
+        }
+
+        ObjectNode list = MAPPER.createObjectNode();
+        list.put( "count", value.size() );
+        list.set( "value", value );
+
+        return list.toString();
+    }
+
+    static WorkItemList azureWorkItems( int size, boolean relations ) {
+        try {
+            return MAPPER.readValue( azureWorkItemsJson( size, relations ), WorkItemList.class );
+        } catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static void addRelation( ArrayNode links, String rel, String name, String url ) {
+        ObjectNode relation = links.addObject();
+        relation.put( "rel", rel );
+        relation.put( "url", url );
+        relation.putObject( "attributes" ).put( "isLocked", false ).put( "name", name );
+    }
+
+    private static String workItemUrl( String id ) {
+        return "https://dev.azure.com/" + ORGANIZATION + "/8c2b5a1e-6f1d-4c2a-9d7e-1f0a3b4c5d6e/_apis/wit/workItems/" + id;
+    }
+}
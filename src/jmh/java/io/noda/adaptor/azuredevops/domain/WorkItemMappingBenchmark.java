@@ -0,0 +1,94 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import org.azd.workitemtracking.types.WorkItemList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mapping of hydrated azd work items onto the Noda model, as done for every work item batch.
+ *
+ *   mvn -Pbenchmark test-compile exec:java -Djmh.args="WorkItemMappingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkItemMappingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int size;
+
+    private final WorkItemMapper mapper = new WorkItemMapper( WorkItemFixtures.ORGANIZATION );
+
+    private WorkItemList withRelations;
+
+    private WorkItemList withFields;
+
+    private List<String> relationUrls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        withRelations = WorkItemFixtures.azureWorkItems( size, true );
+        withFields = WorkItemFixtures.azureWorkItems( size, false );
+
+        relationUrls = new ArrayList<>();
+        withRelations.getWorkItems().forEach(item -> item.getRelations().forEach(relation -> relationUrls.add( relation.getUrl() )));
+    }
+
+    @Benchmark
+    public List<WorkItem> mapWithRelations() {
+        List<WorkItem> workItems = new ArrayList<>( size );
+        withRelations.getWorkItems().forEach(item -> workItems.add( mapper.toWorkItem( item, true )));
+        return workItems;
+    }
+
+    @Benchmark
+    public List<WorkItem> mapWithFields() {
+        List<WorkItem> workItems = new ArrayList<>( size );
+        withFields.getWorkItems().forEach(item -> workItems.add( mapper.toWorkItem( item, false )));
+        return workItems;
+    }
+
+    @Benchmark
+    public void readHierarchy( Blackhole blackhole ) {
+        for (org.azd.workitemtracking.types.WorkItem item : withRelations.getWorkItems()) {
+            blackhole.consume( WorkItemMapper.readHierarchy( item.getRelations() ));
+        }
+    }
+
+    @Benchmark
+    public void parseTrailingId( Blackhole blackhole ) {
+        for (String url : relationUrls) {
+            blackhole.consume( WorkItemMapper.parseTrailingId( url ));
+        }
+    }
+
+    // The former per call compiled look ahead regex, kept as the baseline of parseTrailingId.
+    @Benchmark
+    public void extractIdWithRegex( Blackhole blackhole ) {
+        for (String url : relationUrls) {
+            Matcher matcher = Pattern.compile("(\\d+)(?!.*\\d)").matcher( url );
+            blackhole.consume( matcher.find() ? matcher.group(1) : "" );
+        }
+    }
+}
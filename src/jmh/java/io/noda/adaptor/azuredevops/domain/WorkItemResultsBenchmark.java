@@ -0,0 +1,88 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of a work item results response from mapped items: item graph, padded trees and the
+ * Jackson serialisation of the whole response.
+ *
+ *   mvn -Pbenchmark test-compile exec:java -Djmh.args="WorkItemResultsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkItemResultsBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, WorkItem> workItemMap;
+
+    private Map<String, WorkItem> unlinkedMap;
+
+    private WorkItemResults results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workItemMap = WorkItemFixtures.linkedItems( size );
+
+        unlinkedMap = WorkItemFixtures.linkedItems( size );
+        unlinkedMap.replaceAll((id, item) -> item.toBuilder().children( new ArrayList<>() ).build());
+
+        results = new WorkItemResults();
+        results.setWorkItems( new ArrayList<>( workItemMap.values() ));
+        results.setWorkPaths( WorkTreeBuilder.build( workItemMap ));
+    }
+
+    @Benchmark
+    public WorkItemGraph buildGraph() {
+        return WorkItemGraph.of( workItemMap.values() );
+    }
+
+    // The former String keyed child reference, kept as the baseline of buildGraph.
+    @Benchmark
+    public Map<String, String> buildChildReference() {
+        return LegacyWorkTreeBuilder.buildChildReference( workItemMap );
+    }
+
+    @Benchmark
+    public Map<String, WorkItem> linkChildrenByParent() {
+        return WorkTreeBuilder.linkChildrenByParent( unlinkedMap );
+    }
+
+    @Benchmark
+    public List<WorkTree> buildTrees() {
+        return WorkTreeBuilder.build( workItemMap );
+    }
+
+    @Benchmark
+    public byte[] serializeResults() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes( results );
+    }
+}
@@ -0,0 +1,54 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterative WorkTreeBuilder against the former recursive implementation.
+ *
+ *   mvn -Pbenchmark test-compile exec:java -Djmh.args="WorkTreeBuilderBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss4m")
+public class WorkTreeBuilderBenchmark {
+
+    @Param({"10000", "50000", "100000"})
+    int size;
+
+    private Map<String, WorkItem> workItemMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workItemMap = WorkItemFixtures.linkedItems( size );
+    }
+
+    @Benchmark
+    public List<WorkTree> iterative() {
+        return WorkTreeBuilder.build( workItemMap );
+    }
+
+    @Benchmark
+    public List<WorkTree> recursive() {
+        return LegacyWorkTreeBuilder.build( workItemMap );
+    }
+}
@@ -0,0 +1,197 @@
+package io.noda.adaptor.azuredevops.api;
+
+import io.noda.adaptor.azuredevops.domain.WorkItemDiff;
+import io.noda.adaptor.common.model.WorkItemDelta;
+import io.noda.adaptor.common.model.WorkItemResults;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pushes work item datasets to the subscribed headsets as Server-Sent Events.
+ *
+ * Every dataset (a team's sprint or a saved query for a team) is polled from Azure once per interval,
+ * however many headsets follow it.  A new subscriber first receives a "snapshot" event with the full
+ * results, after that only "delta" events are sent when something changed.
+ */
+@Component
+public class LiveUpdatePublisher {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${azure-devops.live.poll-interval:15s}")
+    Duration pollInterval;
+
+    @Value("${azure-devops.live.emitter-timeout:30m}")
+    Duration emitterTimeout;
+
+    @Value("${azure-devops.live.poller-threads:2}")
+    int pollerThreads;
+
+    private ScheduledExecutorService scheduler;
+
+    private final Map<String, LiveDataset> datasets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newScheduledThreadPool( Math.max( 1, pollerThreads ), new CustomizableThreadFactory("live-poller-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        datasets.values().forEach(dataset -> dataset.emitters.forEach(SseEmitter::complete));
+        datasets.clear();
+    }
+
+    public SseEmitter subscribe( String key, Supplier<WorkItemResults> source ) {
+        SseEmitter emitter = new SseEmitter( emitterTimeout.toMillis() );
+        emitter.onCompletion(() -> unsubscribe( key, emitter ));
+        emitter.onTimeout(() -> unsubscribe( key, emitter ));
+        emitter.onError(e -> unsubscribe( key, emitter ));
+
+        LiveDataset dataset = datasets.compute( key, (k, existing) -> {
+            LiveDataset subscribed = existing;
+            if( subscribed == null ) {
+                LOGGER.info( "Following live dataset {}", k );
+                subscribed = new LiveDataset( k, source );
+                subscribed.poll = scheduler.scheduleWithFixedDelay( subscribed::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS );
+            }
+            subscribed.emitters.add( emitter );
+            return subscribed;
+        });
+        scheduler.execute(() -> dataset.sendLatest( emitter ));
+
+        return emitter;
+    }
+
+    public int getSubscriberCount( String key ) {
+        LiveDataset dataset = datasets.get( key );
+        return dataset == null ? 0 : dataset.emitters.size();
+    }
+
+    private void unsubscribe( String key, SseEmitter emitter ) {
+        datasets.computeIfPresent( key, (k, dataset) -> {
+            dataset.emitters.remove( emitter );
+            dataset.snapshotSent.remove( emitter );
+            if( dataset.emitters.isEmpty() ) {
+                LOGGER.info( "No more subscribers, no longer following live dataset {}", k );
+                dataset.poll.cancel( false );
+                return null;
+            }
+            return dataset;
+        });
+    }
+
+    private class LiveDataset {
+
+        private final String key;
+
+        private final Supplier<WorkItemResults> source;
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        // Emitters that got their snapshot event; until then they are sent the snapshot instead of a delta.
+        private final Set<SseEmitter> snapshotSent = ConcurrentHashMap.newKeySet();
+
+        private ScheduledFuture<?> poll;
+
+        private WorkItemResults latest;
+
+        private long version;
+
+        LiveDataset( String key, Supplier<WorkItemResults> source ) {
+            this.key = key;
+            this.source = source;
+        }
+
+        synchronized void sendLatest( SseEmitter emitter ) {
+            if( latest != null && snapshotSent.add( emitter )) {
+                send( emitter, snapshotEvent() );
+            }
+        }
+
+        // Azure is read without holding the dataset, so subscribers joining meanwhile aren't kept waiting.
+        void poll() {
+            try {
+                publish( source.get() );
+            } catch (RuntimeException e) {
+                LOGGER.warn( "Live dataset {} poll failed: {}", key, e.getMessage() );
+                String message = String.valueOf( e.getMessage() );
+                synchronized (this) {
+                    broadcast(() -> SseEmitter.event().name("failure").data( message ));
+                }
+            }
+        }
+
+        private synchronized void publish( WorkItemResults current ) {
+            if( latest == null ) {
+                latest = current;
+                version = 1;
+                emitters.forEach(this::sendLatest);
+                return;
+            }
+
+            WorkItemDelta delta = WorkItemDiff.between( latest, current );
+            if( WorkItemDiff.isEmpty( delta )) {
+                broadcast(() -> SseEmitter.event().comment("keep-alive") );
+                return;
+            }
+
+            delta.setSinceVersion( version );
+            delta.setVersion( ++version );
+            latest = current;
+            String id = Long.toString( version );
+            emitters.forEach(emitter -> {
+                if( snapshotSent.add( emitter )) {
+                    send( emitter, snapshotEvent() );
+                } else {
+                    send( emitter, SseEmitter.event().name("delta").id( id ).data( delta, MediaType.APPLICATION_JSON ));
+                }
+            });
+        }
+
+        private SseEmitter.SseEventBuilder snapshotEvent() {
+            WorkItemResults snapshot = new WorkItemResults();
+            snapshot.setWorkItems( latest.getWorkItems() );
+            snapshot.setWorkPaths( latest.getWorkPaths() );
+            snapshot.setVersion( version );
+
+            return SseEmitter.event().name("snapshot").id( Long.toString( version )).data( snapshot, MediaType.APPLICATION_JSON );
+        }
+
+        // Event builders are single use, so every emitter gets its own.
+        private void broadcast( Supplier<SseEmitter.SseEventBuilder> event ) {
+            emitters.forEach(emitter -> send( emitter, event.get() ));
+        }
+
+        private void send( SseEmitter emitter, SseEmitter.SseEventBuilder event ) {
+            try {
+                emitter.send( event );
+            } catch (IOException | IllegalStateException e) {
+                // The headset went away.
+                unsubscribe( key, emitter );
+                emitter.completeWithError( e );
+            }
+        }
+    }
+}
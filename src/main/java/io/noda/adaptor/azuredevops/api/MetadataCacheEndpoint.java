@@ -0,0 +1,39 @@
+package io.noda.adaptor.azuredevops.api;
+
+import io.noda.adaptor.azuredevops.domain.MetadataCaches;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Admin endpoint for the Azure DevOps metadata caches.  It can drop caches and the service has no security
+ * configured, so it is only exposed over JMX (org.springframework.boot:type=Endpoint,name=Metadatacache):
+ * invalidateAll drops every cache, invalidate a single one, along with the query index built from it.
+ */
+@Component
+@Endpoint(id = "metadatacache")
+public class MetadataCacheEndpoint {
+
+    @Autowired
+    MetadataCaches metadataCaches;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> statistics() {
+        return metadataCaches.getStatistics();
+    }
+
+    @DeleteOperation
+    public void invalidateAll() {
+        metadataCaches.invalidateAll();
+    }
+
+    @DeleteOperation
+    public boolean invalidate( @Selector String name ) {
+        return metadataCaches.invalidate( name );
+    }
+}
@@ -0,0 +1,97 @@
+package io.noda.adaptor.azuredevops.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.noda.adaptor.azuredevops.domain.WorkItemResultsStream;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes work item results as newline delimited JSON, one record per line:
+ *
+ *   {"type":"item","item":{...}}         a work item; a later record for the same id replaces it
+ *   {"type":"path","path":{...}}         a root work tree
+ *   {"type":"end","version":12}          the results are complete
+ *   {"type":"failure","message":"..."}   the results could not be completed
+ *
+ * Every call is flushed, so the client receives the items of each hydrated batch straight away.
+ */
+class NdjsonResultsWriter implements WorkItemResultsStream {
+
+    private final JsonGenerator generator;
+
+    NdjsonResultsWriter( ObjectMapper objectMapper, OutputStream out ) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator( out );
+        this.generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+        // Records are separated by the line feeds, not by Jackson's root value separator.
+        this.generator.setRootValueSeparator( null );
+    }
+
+    void write( WorkItemResults results ) {
+        items( results.getWorkItems() );
+        paths( results.getWorkPaths() );
+        complete( results.getVersion() );
+    }
+
+    @Override
+    public void items( List<WorkItem> workItems ) {
+        try {
+            for (WorkItem item : workItems) {
+                generator.writeStartObject();
+                generator.writeStringField( "type", "item" );
+                generator.writeObjectField( "item", item );
+                endRecord();
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public void paths( List<WorkTree> workPaths ) {
+        try {
+            for (WorkTree path : workPaths) {
+                generator.writeStartObject();
+                generator.writeStringField( "type", "path" );
+                generator.writeObjectField( "path", path );
+                endRecord();
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public void complete( long version ) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField( "type", "end" );
+            generator.writeNumberField( "version", version );
+            endRecord();
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    void failure( String message ) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField( "type", "failure" );
+        generator.writeStringField( "message", message );
+        endRecord();
+        generator.close();
+    }
+
+    private void endRecord() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw( '\n' );
+    }
+}
@@ -1,17 +1,35 @@
 package io.noda.adaptor.azuredevops.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.noda.adaptor.azuredevops.domain.AdaptorExecutor;
 import io.noda.adaptor.azuredevops.domain.AzureAdaptor;
+import io.noda.adaptor.azuredevops.domain.ContentVersion;
+import io.noda.adaptor.azuredevops.domain.ContentVersions;
+import io.noda.adaptor.azuredevops.domain.MapPatchPlanner;
+import io.noda.adaptor.azuredevops.domain.MapStore;
+import io.noda.adaptor.azuredevops.domain.MapVersion;
+import io.noda.adaptor.azuredevops.domain.NodeLayoutEngine;
+import io.noda.adaptor.azuredevops.domain.PortfolioAggregator;
 import io.noda.adaptor.common.model.Iteration;
+import io.noda.adaptor.common.model.MapPatchPlan;
+import io.noda.adaptor.common.model.NodeLayout;
+import io.noda.adaptor.common.model.PortfolioScope;
 import io.noda.adaptor.common.model.QueryItem;
+import io.noda.adaptor.common.model.WorkItemDelta;
 import io.noda.adaptor.common.model.WorkItemResults;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,8 +37,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/agile")
@@ -34,6 +57,28 @@ public class NodaAPI {
     @Autowired
     AzureAdaptor adaptor;
 
+    @Autowired
+    LiveUpdatePublisher liveUpdates;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MapStore mapStore;
+
+    @Autowired
+    ContentVersions contentVersions;
+
+    // Runs the Azure backed reads off the servlet threads, with a timeout per request.
+    @Autowired
+    AdaptorExecutor executor;
+
+    @Autowired
+    NodeLayoutEngine layoutEngine;
+
+    @Autowired
+    PortfolioAggregator portfolio;
+
     @GetMapping(
             value = "/organization",
             produces = MediaType.APPLICATION_JSON_VALUE)
@@ -43,13 +88,12 @@ public class NodaAPI {
             tags = { "projects" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public List<String> getOrganizations() {
-        adaptor.login();
-
-        return adaptor.getOrganizations();
+    public ResponseEntity<List<String>> getOrganizations() {
+        return versioned( contentVersions.track( "organizations", adaptor.getOrganizations() ));
     }
 
     @GetMapping(
@@ -61,13 +105,13 @@ public class NodaAPI {
             tags = { "projects" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public List<String> getProjects() {
-        adaptor.login();
-
-        return adaptor.getProjects();
+    public CompletableFuture<ResponseEntity<List<String>>> getProjects() {
+        return executor.supply(() -> versioned( contentVersions.track( "projects", adaptor.getProjects() )));
     }
 
     @GetMapping(
@@ -79,13 +123,13 @@ public class NodaAPI {
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public List<String> getTeams() {
-        adaptor.login();
-
-        return adaptor.getTeams();
+    public CompletableFuture<ResponseEntity<List<String>>> getTeams() {
+        return executor.supply(() -> versioned( contentVersions.track( "teams", adaptor.getTeams() )));
     }
 
     @GetMapping(
@@ -97,13 +141,13 @@ public class NodaAPI {
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public List<Iteration> getSprints(@RequestParam String team ) {
-        adaptor.login();
-
-        return adaptor.getSprints( team );
+    public CompletableFuture<ResponseEntity<List<Iteration>>> getSprints(@RequestParam String team ) {
+        return executor.supply(() -> versioned( contentVersions.track( "sprints:" + team, adaptor.getSprints( team ))));
     }
 
 
@@ -116,13 +160,13 @@ public class NodaAPI {
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public List<QueryItem> getQueries() {
-        adaptor.login();
-
-        return adaptor.getQueries();
+    public CompletableFuture<ResponseEntity<List<QueryItem>>> getQueries() {
+        return executor.supply(() -> versioned( contentVersions.track( "queries", adaptor.getQueries() )));
     }
 
     @GetMapping(
@@ -134,13 +178,49 @@ public class NodaAPI {
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public WorkItemResults getQueryResults(@PathVariable String team, @PathVariable String queryId ) {
-        adaptor.login();
+    public CompletableFuture<ResponseEntity<WorkItemResults>> getQueryResults(@PathVariable String team, @PathVariable String queryId ) {
+        return executor.supply(() -> versioned( contentVersions.track( "query:" + queryId + "/" + team, adaptor.getQueryWorkItemResults( queryId, team ))));
+    }
 
-        return adaptor.getQueryWorkItemResults( queryId, team );
+    @GetMapping(
+            value = "/query/{queryId}/team/{team}",
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Streams the work items of a saved query.",
+            description = "Produces newline delimited JSON records (Accept: application/x-ndjson or ?format=ndjson): the work items as each batch is hydrated, then the work item trees",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public StreamingResponseBody streamQueryResults(@PathVariable String team, @PathVariable String queryId ) {
+        return streamResults( writer -> adaptor.streamQueryWorkItemResults( queryId, team, writer ));
+    }
+
+    @PostMapping(
+            value = "/portfolio",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the work items of many teams as one dataset.",
+            description = "Loads every scope (a team's sprint or saved query, in the configured or another project) in parallel and merges them into a single set of work items & trees",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "No scope, too many scopes or a scope without a team, sprint or query"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "404", description = "Project not found in the organization"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<ResponseEntity<WorkItemResults>> getPortfolioResults( @RequestBody List<PortfolioScope> scopes ) {
+        return executor.supply(() -> ResponseEntity.ok( portfolio.load( scopes )));
     }
 
     @GetMapping(
@@ -152,15 +232,177 @@ public class NodaAPI {
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public WorkItemResults getItems(@PathVariable String team, @PathVariable String sprint ) {
-        adaptor.login();
+    public CompletableFuture<ResponseEntity<WorkItemResults>> getItems(@PathVariable String team, @PathVariable String sprint ) {
+        return executor.supply(() -> versioned( adaptor.getVersionedWorkItemResults( team, sprint )));
+    }
 
-        return adaptor.getWorkItemResults( team, sprint );
+    @GetMapping(
+            value = "/items/team/{team}/sprint/{sprint}",
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Streams the work items of a team's sprint.",
+            description = "Produces newline delimited JSON records (Accept: application/x-ndjson or ?format=ndjson): the work items, then the work item trees",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public StreamingResponseBody streamItems(@PathVariable String team, @PathVariable String sprint ) {
+        return streamResults( writer -> writer.write( adaptor.getWorkItemResults( team, sprint )));
+    }
+
+    @GetMapping(
+            value = "/items/team/{team}/sprint/{sprint}/changes",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the work item changes since a known dataset tag.",
+            description = "Produces the work items and trees changed or removed since the version of the given tag (the 'tag' of the previous changes or the ETag of the items), or the full dataset when the tag is no longer known",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<WorkItemDelta> getItemChanges(@PathVariable String team, @PathVariable String sprint, @RequestParam(required = false) String since ) {
+        return executor.supply(() -> adaptor.getWorkItemChanges( team, sprint, since ));
     }
 
+    @GetMapping(
+            value = "/layout/items/team/{team}/sprint/{sprint}",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the map layout of a team's sprint.",
+            description = "Produces the work items with their node positions and links, ready to place; x, y & z set the spacing between nodes and levels",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<ResponseEntity<NodeLayout>> getItemsLayout(
+            @PathVariable String team,
+            @PathVariable String sprint,
+            @RequestParam(defaultValue = "0.300") double x,
+            @RequestParam(defaultValue = "0.420") double y,
+            @RequestParam(defaultValue = "0.300") double z ) {
+        return executor.supply(() -> versioned( layoutEngine.layout( "sprint:" + team + "/" + sprint,
+                adaptor.getVersionedWorkItemResults( team, sprint ), new NodeLayoutEngine.Spacing( x, y, z ))));
+    }
+
+    @GetMapping(
+            value = "/layout/query/{queryId}/team/{team}",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the map layout of a saved query.",
+            description = "Produces the work items with their node positions and links, ready to place; x, y & z set the spacing between nodes and levels",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<ResponseEntity<NodeLayout>> getQueryLayout(
+            @PathVariable String team,
+            @PathVariable String queryId,
+            @RequestParam(defaultValue = "0.300") double x,
+            @RequestParam(defaultValue = "0.420") double y,
+            @RequestParam(defaultValue = "0.300") double z ) {
+        String datasetKey = "query:" + queryId + "/" + team;
+        return executor.supply(() -> versioned( layoutEngine.layout( datasetKey,
+                contentVersions.track( datasetKey, adaptor.getQueryWorkItemResults( queryId, team )), new NodeLayoutEngine.Spacing( x, y, z ))));
+    }
+
+    @GetMapping(
+            value = "/plan/items/team/{team}/sprint/{sprint}",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the map changes of a team's sprint since the rendered state.",
+            description = "Produces the nodes to create, update & delete and the links to add & remove to bring a map rendered at the 'since' tag up to date; without a known tag every node is to create",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<MapPatchPlan> getItemsPlan(
+            @PathVariable String team,
+            @PathVariable String sprint,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "0.300") double x,
+            @RequestParam(defaultValue = "0.420") double y,
+            @RequestParam(defaultValue = "0.300") double z ) {
+        return executor.supply(() -> patchPlan( "sprint:" + team + "/" + sprint,
+                adaptor.getVersionedWorkItemResults( team, sprint ), since, new NodeLayoutEngine.Spacing( x, y, z )));
+    }
+
+    @GetMapping(
+            value = "/plan/query/{queryId}/team/{team}",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the map changes of a saved query since the rendered state.",
+            description = "Produces the nodes to create, update & delete and the links to add & remove to bring a map rendered at the 'since' tag up to date; without a known tag every node is to create",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "504", description = "Azure DevOps did not answer in time"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public CompletableFuture<MapPatchPlan> getQueryPlan(
+            @PathVariable String team,
+            @PathVariable String queryId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "0.300") double x,
+            @RequestParam(defaultValue = "0.420") double y,
+            @RequestParam(defaultValue = "0.300") double z ) {
+        String datasetKey = "query:" + queryId + "/" + team;
+        return executor.supply(() -> patchPlan( datasetKey,
+                contentVersions.track( datasetKey, adaptor.getQueryWorkItemResults( queryId, team )), since, new NodeLayoutEngine.Spacing( x, y, z )));
+    }
+
+    @GetMapping(
+            value = "/live/items/team/{team}/sprint/{sprint}",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Follows the work items of a team's sprint.",
+            description = "Streams a 'snapshot' event with the work items, then 'delta' events whenever they change. The sprint is polled once for all subscribers",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public SseEmitter followItems(@PathVariable String team, @PathVariable String sprint ) {
+        return liveUpdates.subscribe( "sprint:" + team + "/" + sprint, () -> adaptor.getWorkItemResults( team, sprint ));
+    }
+
+    @GetMapping(
+            value = "/live/query/{queryId}/team/{team}",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Follows the work items of a saved query.",
+            description = "Streams a 'snapshot' event with the work items, then 'delta' events whenever they change. The query is run once for all subscribers",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public SseEmitter followQueryResults(@PathVariable String team, @PathVariable String queryId ) {
+        return liveUpdates.subscribe( "query:" + queryId + "/" + team, () -> adaptor.getQueryWorkItemResults( queryId, team ));
+    }
 
     @PostMapping(
             value = "/map",
@@ -168,14 +410,100 @@ public class NodaAPI {
             produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "Acceptes the Noda Node Map",
-            description = "Imports the Noda Node Map Localy",
+            description = "Stores the Noda Node Map as a new version for the team & sprint, unless it matches the latest version",
             tags = { "teams" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
             @ApiResponse(responseCode = "403", description = "Input Data Parsing Error"),
+            @ApiResponse(responseCode = "413", description = "Map exceeds the configured maximum size"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public Callable<ResponseEntity<MapVersion>> saveMap(
+            @RequestParam(defaultValue = "default") String team,
+            @RequestParam(defaultValue = "default") String sprint,
+            HttpServletRequest request ) {
+        // The body is spooled on the async executor, not on the request thread.
+        return () -> {
+            MapVersion saved = mapStore.save( team, sprint, request::getInputStream );
+            LOGGER.info( "Map {}/{} version {}, {} bytes, {}", team, sprint, saved.getVersion(), saved.getSize(), saved.getHash() );
+            return ResponseEntity.ok().eTag( saved.getHash() ).body( saved );
+        };
+    }
+
+    @GetMapping(
+            value = "/map",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets a saved Noda Node Map",
+            description = "Returns the latest, or the requested, version of the Noda Node Map of the team & sprint",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "Map unchanged since the given ETag"),
+            @ApiResponse(responseCode = "404", description = "No map saved for the team & sprint"),
             @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
     })
-    public void saveMap(@RequestBody String mapJson ) {
-        LOGGER.info( mapJson );
+    public ResponseEntity<Resource> getMap(
+            @RequestParam(defaultValue = "default") String team,
+            @RequestParam(defaultValue = "default") String sprint,
+            @RequestParam(required = false) Integer version ) {
+        return mapStore.find( team, sprint, version )
+                .map(saved -> ResponseEntity.ok()
+                        .eTag( saved.getHash() )
+                        .lastModified( saved.getSavedAt() )
+                        .<Resource>body( new FileSystemResource( mapStore.contentFile( saved.getHash() ))))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(
+            value = "/map/versions",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Gets the saved versions of a Noda Node Map",
+            description = "Lists the saved versions of the Noda Node Map of the team & sprint, latest first",
+            tags = { "teams" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "500", description = "Service not available at this moment."),
+    })
+    public List<MapVersion> getMapVersions(
+            @RequestParam(defaultValue = "default") String team,
+            @RequestParam(defaultValue = "default") String sprint ) {
+        return mapStore.versions( team, sprint );
+    }
+
+    // Answers 304 when the client holds the current version; the check is made before the result is serialised.
+    // The layout rendered at the client's tag is still cached when it is recent; otherwise the plan is a full one.
+    private MapPatchPlan patchPlan( String datasetKey, ContentVersion<WorkItemResults> results, String since, NodeLayoutEngine.Spacing spacing ) {
+        ContentVersion<NodeLayout> current = layoutEngine.layout( datasetKey, results, spacing );
+        NodeLayout rendered = since == null ? null : layoutEngine.cached( datasetKey, since, spacing ).orElse( null );
+
+        return MapPatchPlanner.plan( rendered, since, current.value(), current.tag() );
+    }
+
+    /**
+     * Tags the result with its version.  The 304 check against If-None-Match / If-Modified-Since is made by
+     * Spring when the entity is handled, before the body is serialised, and also after an async dispatch.
+     * no-cache makes the browser revalidate on every use rather than guess freshness.
+     */
+    private <T> ResponseEntity<T> versioned( ContentVersion<T> version ) {
+        return ResponseEntity.ok()
+                .eTag( "W/\"" + version.tag() + "\"" )
+                .lastModified( version.lastModified() )
+                .cacheControl( CacheControl.noCache() )
+                .body( version.value() );
+    }
+
+    // Once the first record is out the status can no longer change, so a failure ends the stream with a failure record.
+    private StreamingResponseBody streamResults( Consumer<NdjsonResultsWriter> producer ) {
+        return out -> {
+            NdjsonResultsWriter writer = new NdjsonResultsWriter( objectMapper, out );
+            try {
+                producer.accept( writer );
+            } catch (RuntimeException e) {
+                LOGGER.warn( "Work item stream failed: {}", e.getMessage() );
+                writer.failure( String.valueOf( e.getMessage() ));
+            }
+        };
     }
 }
@@ -0,0 +1,130 @@
+package io.noda.adaptor.azuredevops.api;
+
+import io.noda.adaptor.azuredevops.domain.AdaptorMetrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Records the serialized size of every API response (noda.response.bytes), tagged with the encoding it was
+ * written in.  The message converters and stream writers all write to the output stream, where the bytes are
+ * counted as they go through; nothing is buffered, so streamed responses stay streamed.  The size of an async
+ * response is recorded once the async request completes.  Server-sent event streams are left out, they have
+ * no size.
+ */
+@Component
+public class ResponseSizeFilter extends OncePerRequestFilter {
+
+    @Autowired
+    AdaptorMetrics metrics;
+
+    @Override
+    protected boolean shouldNotFilter( HttpServletRequest request ) {
+        return !request.getRequestURI().startsWith( request.getContextPath() + "/api/" );
+    }
+
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain chain ) throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse( response );
+        try {
+            chain.doFilter( request, counting );
+        } finally {
+            if( request.isAsyncStarted() ) {
+                request.getAsyncContext().addListener( new AsyncListener() {
+                    @Override
+                    public void onComplete( AsyncEvent event ) {
+                        record( counting );
+                    }
+
+                    @Override
+                    public void onTimeout( AsyncEvent event ) {
+                    }
+
+                    @Override
+                    public void onError( AsyncEvent event ) {
+                    }
+
+                    @Override
+                    public void onStartAsync( AsyncEvent event ) {
+                    }
+                });
+            } else {
+                record( counting );
+            }
+        }
+    }
+
+    private void record( CountingResponse response ) {
+        String contentType = response.getContentType();
+        if( contentType == null || contentType.startsWith( MediaType.TEXT_EVENT_STREAM_VALUE )) {
+            return;
+        }
+
+        metrics.responseSize( encoding( contentType ), response.count );
+    }
+
+    // application/json -> json, application/x-ndjson -> ndjson
+    static String encoding( String contentType ) {
+        String subtype = MediaType.parseMediaType( contentType ).getSubtype();
+        return subtype.startsWith( "x-" ) ? subtype.substring( 2 ) : subtype;
+    }
+
+    private static class CountingResponse extends HttpServletResponseWrapper {
+
+        private long count;
+
+        private ServletOutputStream outputStream;
+
+        CountingResponse( HttpServletResponse response ) {
+            super( response );
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if( outputStream == null ) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write( int b ) throws IOException {
+                        target.write( b );
+                        count++;
+                    }
+
+                    @Override
+                    public void write( byte[] b, int off, int len ) throws IOException {
+                        target.write( b, off, len );
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener( WriteListener listener ) {
+                        target.setWriteListener( listener );
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs adaptor calls off the servlet threads, so a request waiting on Azure DevOps does not hold a Tomcat
+ * worker.  Each call gets azure-devops.async.timeout; past it the request fails with a 504.  A call that
+ * already started runs on, and its result still lands in the caches and snapshots for the next request; a
+ * call still queued when its request timed out is skipped.
+ *
+ * On a runtime with virtual threads (Java 21+) each call gets one, unless azure-devops.async.virtual-threads
+ * is false; otherwise calls run on a pool of azure-devops.async.pool-size threads, with at most
+ * azure-devops.async.queue-capacity calls waiting.  Past that, requests are turned away with a 503.
+ */
+@Component
+public class AdaptorExecutor {
+
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public static class AdaptorTimeoutException extends RuntimeException {
+
+        public AdaptorTimeoutException( Duration timeout ) {
+            super( "Azure DevOps did not answer within " + timeout );
+        }
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class AdaptorBusyException extends RuntimeException {
+
+        public AdaptorBusyException( int queueCapacity ) {
+            super( "Too many requests waiting on Azure DevOps (" + queueCapacity + " queued)" );
+        }
+    }
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${azure-devops.async.timeout:30s}")
+    Duration timeout;
+
+    @Value("${azure-devops.async.pool-size:64}")
+    int poolSize;
+
+    @Value("${azure-devops.async.queue-capacity:256}")
+    int queueCapacity;
+
+    @Value("${azure-devops.async.virtual-threads:true}")
+    boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = virtualThreads ? virtualThreadExecutor() : null;
+        if( executor == null ) {
+            int threads = Math.max( 1, poolSize );
+            executor = new ThreadPoolExecutor( threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>( Math.max( 1, queueCapacity )), new CustomizableThreadFactory("azure-request-"));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public <T> CompletableFuture<T> supply( Supplier<T> work ) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // Timed out while queued: nobody waits for the result any more.
+                if( result.isDone() ) {
+                    return;
+                }
+                try {
+                    result.complete( work.get() );
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally( e );
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture( new AdaptorBusyException( queueCapacity ));
+        }
+
+        return result
+                .orTimeout( timeout.toMillis(), TimeUnit.MILLISECONDS )
+                .exceptionally(e -> {
+                    if( e instanceof TimeoutException ) {
+                        throw new AdaptorTimeoutException( timeout );
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException( e );
+                });
+    }
+
+    // Looked up at runtime, the code base targets Java 17.
+    private ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+            LOGGER.info( "Adaptor calls run on virtual threads" );
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
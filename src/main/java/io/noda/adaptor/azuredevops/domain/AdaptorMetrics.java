@@ -0,0 +1,104 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters of the work item hot path, so a slow results call can be traced to its phase:
+ *
+ *   noda.phase              timer per phase (wiql, hydrate, ancestors, tree, fan-out, merge) tagged endpoint, team & outcome
+ *   noda.items.hydrated     work items hydrated, tagged endpoint & team
+ *   noda.results.items      distribution of the work items per results, tagged endpoint & team
+ *   azure.workitems.batch   distribution of the work item batch sizes read from Azure, tagged projection
+ *   noda.mapping            timer of mapping a batch to the model, tagged projection
+ *   noda.response.bytes     distribution of the serialized response sizes, tagged encoding
+ *
+ * The meters tagged by team publish no percentile histogram, its buckets times every team would make too
+ * many series; the histograms are kept to the meters with a few fixed tag values.
+ *
+ * The Azure round trips themselves are timed by the AzureCallScheduler (azure.calls).
+ */
+@Component
+public class AdaptorMetrics {
+
+    public static final String SPRINT_ITEMS = "items";
+
+    public static final String QUERY_RESULTS = "query";
+
+    public static final String QUERY_STREAM = "query-stream";
+
+    public static final String PORTFOLIO = "portfolio";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    public <T> T time( String phase, String endpoint, String team, Supplier<T> work ) {
+        Timer.Sample sample = Timer.start( meterRegistry );
+        String outcome = "failure";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop( Timer.builder( "noda.phase" )
+                    .description( "Time spent in a phase of building work item results" )
+                    .tag( "phase", phase )
+                    .tag( "endpoint", endpoint )
+                    .tag( "team", team )
+                    .tag( "outcome", outcome )
+                    .register( meterRegistry ));
+        }
+    }
+
+    public void hydrated( String endpoint, String team, int items ) {
+        Counter.builder( "noda.items.hydrated" )
+                .description( "Work items hydrated from Azure DevOps" )
+                .tag( "endpoint", endpoint )
+                .tag( "team", team )
+                .register( meterRegistry )
+                .increment( items );
+    }
+
+    public void results( String endpoint, String team, int items ) {
+        DistributionSummary.builder( "noda.results.items" )
+                .description( "Work items per results" )
+                .tag( "endpoint", endpoint )
+                .tag( "team", team )
+                .register( meterRegistry )
+                .record( items );
+    }
+
+    /**
+     * @param encoding media type the response was serialized to (json, ndjson, ...)
+     */
+    public void responseSize( String encoding, long bytes ) {
+        DistributionSummary.builder( "noda.response.bytes" )
+                .description( "Serialized size of the responses" )
+                .baseUnit( "bytes" )
+                .tag( "encoding", encoding )
+                .publishPercentileHistogram()
+                .register( meterRegistry )
+                .record( bytes );
+    }
+
+    public <T> T mapBatch( WorkItemProjection projection, int size, Supplier<T> mapping ) {
+        String tag = projection.isRelations() ? "relations" : "fields";
+        DistributionSummary.builder( "azure.workitems.batch" )
+                .description( "Work items per batch read from Azure DevOps" )
+                .tag( "projection", tag )
+                .register( meterRegistry )
+                .record( size );
+
+        return Timer.builder( "noda.mapping" )
+                .description( "Time spent mapping a batch of Azure work items to the model" )
+                .tag( "projection", tag )
+                .register( meterRegistry )
+                .record( mapping );
+    }
+}
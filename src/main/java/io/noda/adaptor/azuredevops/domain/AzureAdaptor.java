@@ -1,64 +1,244 @@
 package io.noda.adaptor.azuredevops.domain;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.noda.adaptor.common.model.Iteration;
 import io.noda.adaptor.common.model.QueryItem;
 import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemDelta;
 import io.noda.adaptor.common.model.WorkItemResults;
-import io.noda.adaptor.common.model.WorkItemState;
-import io.noda.adaptor.common.model.WorkItemType;
 import io.noda.adaptor.common.model.WorkTree;
+import jakarta.annotation.PostConstruct;
 import org.azd.core.types.Projects;
 import org.azd.core.types.Team;
 import org.azd.core.types.Teams;
 import org.azd.enums.QueryExpand;
 import org.azd.enums.WorkItemExpand;
-import org.azd.exceptions.AzDException;
 import org.azd.utils.AzDClientApi;
 import org.azd.work.types.TeamSettingsIterations;
+import org.azd.workitemtracking.types.QueryHierarchyItem;
 import org.azd.workitemtracking.types.QueryHierarchyItems;
 import org.azd.workitemtracking.types.WorkItemList;
 import org.azd.workitemtracking.types.WorkItemQueryResult;
 import org.azd.workitemtracking.types.WorkItemReference;
-import org.azd.workitemtracking.types.WorkItemRelations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Azure DevOps adaptor for one organization & project.  The configured project is served by this bean,
+ * AzureTenants builds an adaptor for every other project asked for.  The organization & project are fixed
+ * once the adaptor is built, so its client, caches and sprint snapshots all belong to that one project.
+ */
 @Component
 public class AzureAdaptor {
 
     private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
 
-    @Value("${azure-devops.token}")
-    private String personalAccessToken;
-
     @Value("${azure-devops.organization}")
     String organization;
 
     @Value("${azure-devops.project}")
     String project;
 
-    // Connect Azure DevOps API with organisation name and personal access token.
-    private AzDClientApi webApi;
+    // Set on the adaptors built by AzureTenants, their metadata caches are named after the project.
+    boolean tenantScoped;
+
+    @Autowired
+    AzureClientProvider clientProvider;
+
+    @Autowired
+    WorkItemHydrator hydrator;
+
+    // Every Azure DevOps call is rate limited, retried and short-circuited here.
+    @Autowired
+    AzureCallScheduler scheduler;
+
+    @Autowired
+    AdaptorMetrics metrics;
+
+    @Autowired
+    WorkItemEntityCache entityCache;
+
+    private static final String[] REVISION_FIELDS = { "System.Id", "System.Rev" };
+
+    @Value("${azure-devops.projection.sprint.fields:}")
+    String[] sprintFields;
+
+    @Value("${azure-devops.projection.sprint.relations:false}")
+    boolean sprintRelations;
+
+    @Value("${azure-devops.projection.query.fields:}")
+    String[] queryFields;
+
+    @Value("${azure-devops.projection.query.relations:false}")
+    boolean queryRelations;
+
+    @Autowired
+    MetadataCaches metadataCaches;
+
+    @Value("${azure-devops.hierarchy.complete:false}")
+    boolean completeHierarchy;
+
+    @Value("${azure-devops.hierarchy.max-depth:4}")
+    int hierarchyMaxDepth;
+
+    @Value("${azure-devops.cache.warm-on-startup:true}")
+    boolean warmOnStartup;
+
+    private LoadingCache<String, List<String>> projectCache;
+
+    private LoadingCache<String, List<String>> teamCache;
+
+    private LoadingCache<String, List<Iteration>> sprintCache;
+
+    private LoadingCache<String, List<QueryItem>> queryCache;
+
+    private final QueryIndex queryIndex = new QueryIndex();
+
+    @Value("${azure-devops.sync.history:50}")
+    int syncHistory;
+
+    @Value("${azure-devops.sync.maximum-snapshots:100}")
+    long maximumSnapshots;
+
+    @Value("${azure-devops.sync.expire-after-access:2h}")
+    Duration snapshotExpireAfterAccess;
+
+    private Cache<String, SprintSnapshot> sprintSnapshots;
+
+    // Concurrent identical Azure calls (same operation & parameters) share a single request.
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private WorkItemMapper mapper;
+
+    @Autowired
+    SnapshotStore snapshotStore;
+
+    private static final TypeReference<List<String>> NAME_LIST = new TypeReference<>() {};
+
+    private static final TypeReference<List<Iteration>> ITERATION_LIST = new TypeReference<>() {};
+
+    private static final TypeReference<List<QueryItem>> QUERY_LIST = new TypeReference<>() {};
+
+    private static final TypeReference<List<WorkItem>> WORK_ITEM_LIST = new TypeReference<>() {};
+
+    private static final TypeReference<WorkItemResults> WORK_ITEM_RESULTS = new TypeReference<>() {};
+
+    @PostConstruct
+    void buildCaches() {
+        mapper = new WorkItemMapper( organization );
+
+        projectCache = metadataCaches.build( cacheName( "projects" ), key -> singleFlight.execute( List.of( "projects", key ),
+                () -> withStoredFallback( catalogKey( "projects", key ), NAME_LIST, this::loadProjects )));
+        teamCache = metadataCaches.build( cacheName( "teams" ), key -> singleFlight.execute( List.of( "teams", key ),
+                () -> withStoredFallback( catalogKey( "teams", key ), NAME_LIST, this::loadTeams )));
+        sprintCache = metadataCaches.build( cacheName( "sprints" ), key -> singleFlight.execute( List.of( "sprints", project, key ),
+                () -> withStoredFallback( catalogKey( "sprints", project + "/" + key ), ITERATION_LIST, () -> loadSprints( key ))));
+        queryCache = metadataCaches.build( cacheName( "queries" ), key -> singleFlight.execute( List.of( "queries", key ), () -> {
+            List<QueryItem> queries = withStoredFallback( catalogKey( "queries", key ), QUERY_LIST, this::loadQueries );
+            queryIndex.replaceAll( queries );
+            return queries;
+        }));
+        metadataCaches.onInvalidate( cacheName( "queries" ), queryIndex::clear );
+
+        sprintSnapshots = Caffeine.newBuilder()
+                .maximumSize( maximumSnapshots )
+                .expireAfterAccess( snapshotExpireAfterAccess )
+                .build();
+    }
+
+    // Start from the stored catalogs, then refresh them from Azure in the background so the first headset does not wait on Azure.
+    @EventListener(ApplicationReadyEvent.class)
+    void warmCaches() {
+        restoreCatalog( projectCache, this.organization, catalogKey( "projects", this.organization ), NAME_LIST );
+        restoreCatalog( teamCache, this.project, catalogKey( "teams", this.project ), NAME_LIST );
+        restoreCatalog( queryCache, this.project, catalogKey( "queries", this.project ), QUERY_LIST ).ifPresent(queryIndex::replaceAll);
+        String sprintPrefix = catalogKey( "sprints", this.project + "/" );
+        snapshotStore.keys( sprintPrefix ).forEach(storeKey -> restoreCatalog( sprintCache, storeKey.substring( sprintPrefix.length() ), storeKey, ITERATION_LIST ));
+
+        if( warmOnStartup ) {
+            CompletableFuture.runAsync(() -> {
+                projectCache.refresh( this.organization );
+                teamCache.refresh( this.project );
+                queryCache.refresh( this.project );
+            }).exceptionally(e -> {
+                LOGGER.warn( "Unable to warm the metadata caches: {}", e.getMessage() );
+                return null;
+            });
+        }
+    }
+
+    private <T> Optional<T> restoreCatalog( LoadingCache<String, T> cache, String key, String storeKey, TypeReference<T> type ) {
+        Optional<T> stored = snapshotStore.load( storeKey, type ).map(SnapshotStore.Stored::value);
+        stored.ifPresent(value -> cache.put( key, value ));
+        return stored;
+    }
+
+    /**
+     * Runs an Azure load and stores its result as the last good one.  When Azure fails, the stored result is
+     * served instead, so headsets keep their data through an outage; without a stored result the failure stands.
+     */
+    private <T> T withStoredFallback( String storeKey, TypeReference<T> type, Supplier<T> load ) {
+        try {
+            T value = load.get();
+            snapshotStore.save( storeKey, value );
+            return value;
+        } catch (RuntimeException e) {
+            Optional<SnapshotStore.Stored<T>> stored = snapshotStore.load( storeKey, type );
+            if( stored.isEmpty() ) {
+                throw e;
+            }
+            LOGGER.warn( "Azure DevOps unavailable ({}), serving {} stored at {}", e.getMessage(), storeKey, stored.get().storedAt() );
+            return stored.get().value();
+        }
+    }
+
+    private String cacheName( String name ) {
+        return tenantScoped ? name + "@" + this.project : name;
+    }
+
+    private String catalogKey( String name, String key ) {
+        return "catalog/" + name + "/" + key;
+    }
 
-    public void login() {
-        webApi = new AzDClientApi(organization, project, personalAccessToken);
+    // Shared Azure DevOps API client for the organisation & project, built once and reused across requests.
+    private AzDClientApi webApi() {
+        return clientProvider.getClient(organization, project);
     }
 
-    public void setProject( String project) {
-        this.project = project;
+    public String getOrganization() {
+        return this.organization;
+    }
+
+    public String getProject() {
+        return this.project;
     }
 
     public List<String> getOrganizations() {
@@ -69,304 +249,426 @@ public class AzureAdaptor {
     }
 
     public List<String> getProjects() {
+        return projectCache.get( this.organization );
+    }
+
+    public List<String> getTeams() {
+        return teamCache.get( this.project );
+    }
+
+    public List<Iteration> getSprints(String team ) {
+        return sprintCache.get( team );
+    }
+
+    public List<QueryItem> getQueries( ) {
+        return queryCache.get( this.project );
+    }
+
+    private List<String> loadProjects() {
         ArrayList<String> dataList = new ArrayList<>();
-        try {
-            Projects projects = webApi.getCoreApi().getProjects();
-            projects.getProjects().stream().forEach(project -> dataList.add( project.getName()));
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
-        }
+        Projects projects = scheduler.call( organization, "getProjects", () -> webApi().getCoreApi().getProjects() );
+        projects.getProjects().stream().forEach(project -> dataList.add( project.getName()));
 
-        return dataList;
+        return List.copyOf( dataList );
     }
 
-    public List<String> getTeams() {
+    private List<String> loadTeams() {
         ArrayList<String> dataList = new ArrayList<>();
-        try {
-            Teams teams = webApi.getCoreApi().getTeams( true, "true", 0, 100);
-            for (Team team : teams.getTeams()) {
-                dataList.add(team.getName());
-            }
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
+        Teams teams = scheduler.call( organization, "getTeams", () -> webApi().getCoreApi().getTeams( true, "true", 0, 100));
+        for (Team team : teams.getTeams()) {
+            dataList.add(team.getName());
         }
 
-        return dataList;
+        return List.copyOf( dataList );
     }
 
-    public List<Iteration> getSprints(String team ) {
+    private List<Iteration> loadSprints(String team ) {
         ArrayList<Iteration> dataList = new ArrayList<>();
-        try {
-            TeamSettingsIterations sprints = webApi.getWorkApi().getTeamSettingsIterations( team );
-
-            sprints.getIterations().forEach(sprint ->
-                    dataList.add( Iteration.builder()
-                        .name(sprint.getName())
-                        .start(Date.from( Instant.parse( sprint.getAttributes().getStartDate())))
-                        .end(Date.from( Instant.parse( sprint.getAttributes().getFinishDate())))
-                        .build()));
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
-        }
+        TeamSettingsIterations sprints = scheduler.call( organization, "getTeamSettingsIterations", () -> webApi().getWorkApi().getTeamSettingsIterations( team ));
 
-        return dataList;
+        sprints.getIterations().forEach(sprint ->
+                dataList.add( Iteration.builder()
+                    .name(sprint.getName())
+                    .start(Date.from( Instant.parse( sprint.getAttributes().getStartDate())))
+                    .end(Date.from( Instant.parse( sprint.getAttributes().getFinishDate())))
+                    .build()));
+
+        return List.copyOf( dataList );
     }
 
-    public List<QueryItem> getQueries( ) {
+    private List<QueryItem> loadQueries( ) {
         ArrayList<QueryItem> dataList = new ArrayList<>();
-        try {
-            QueryHierarchyItems queries = webApi.getWorkItemTrackingApi().getQueries(2, QueryExpand.ALL, false );
-            queries.getQueryHierarchyItems().stream().filter(item -> item.getChildren() != null).
-                    forEach(item -> item.getChildren().forEach(subItem -> dataList.add(
-                    QueryItem.builder().path(subItem.getPath()).uuid(subItem.getId()).wiql(subItem.getWiql()).build())));
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
-        }
+        QueryHierarchyItems queries = scheduler.call( organization, "getQueries", () -> webApi().getWorkItemTrackingApi().getQueries(2, QueryExpand.ALL, false ));
+        queries.getQueryHierarchyItems().stream().filter(item -> item.getChildren() != null).
+                forEach(item -> item.getChildren().forEach(subItem -> dataList.add(
+                QueryItem.builder().path(subItem.getPath()).uuid(subItem.getId()).wiql(subItem.getWiql()).build())));
 
-        return dataList;
+        return List.copyOf( dataList );
     }
 
     public WorkItemResults getWorkItemResults( String team, String iteration ) {
-        WorkItemResults results = new WorkItemResults();
-        try {
-            String wiql = "select [System.Id], [System.WorkItemType], [System.Title], [System.AssignedTo], [System.State] from WorkItems where [System.TeamProject] = @project and [System.WorkItemType] <> '' and [System.State] <> 'Removed' and [System.IterationPath] UNDER '" + this.project + "\\" + iteration + "'" ;
-
-            WorkItemQueryResult result = webApi.getWorkItemTrackingApi().queryByWiql( team, wiql );
-            int[] workItemIdArray = result.getWorkItems().stream().mapToInt(WorkItemReference::getId).toArray();
-
-            if( workItemIdArray.length > 0 ) {
-                List<WorkItem> workItemList = getWorkItemData(workItemIdArray);
-                Map<String, WorkItem> workItemMap = workItemList.stream().collect(
-                        Collectors.toMap(WorkItem::getId, Function.identity()));
-                results.setWorkItems(workItemList);
-
-                Map<String, String> childRef = buildChildReference(workItemMap);
-                List<String> rootElements = getRootLevelNodes(workItemList, childRef);
-
-                List<WorkTree> rootNodeTree = new ArrayList<>();
-                rootElements.stream().map(workItemMap::get).map(workItem ->
-                                buildNodeTree(workItem, workItemMap, null, 0)).forEach(nodeTree -> {
-                                    int d = getMaxDepth(nodeTree);
-                                    padNodeTree(nodeTree, d);
-                                    rootNodeTree.add(nodeTree);
-                });
-                results.setWorkPaths(rootNodeTree);
-            }
-
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
-        }
+        WorkItemResults results = currentSprint( team, iteration ).toResults();
+        metrics.results( AdaptorMetrics.SPRINT_ITEMS, team, results.getWorkItems().size() );
+        return results;
+    }
 
+    public ContentVersion<WorkItemResults> getVersionedWorkItemResults( String team, String iteration ) {
+        ContentVersion<WorkItemResults> results = currentSprint( team, iteration ).toVersionedResults();
+        metrics.results( AdaptorMetrics.SPRINT_ITEMS, team, results.value().getWorkItems().size() );
         return results;
     }
 
-    public WorkItemResults getQueryWorkItemResults(String uuid, String team ) {
-        WorkItemResults results = new WorkItemResults();
+    public WorkItemDelta getWorkItemChanges( String team, String iteration, String sinceTag ) {
+        return currentSprint( team, iteration ).changesSince( sinceTag );
+    }
+
+    /**
+     * Sprint snapshot to answer from.  A snapshot restored from the store is answered from straight away while
+     * it is synchronised in the background; when Azure fails, the last synchronised state is served.
+     */
+    private SprintSnapshot currentSprint( String team, String iteration ) {
+        SprintSnapshot snapshot = sprintSnapshot( team, iteration );
+        if( snapshot.isRestored() ) {
+            CompletableFuture.runAsync(() -> synchronizeSprint( team, iteration )).exceptionally(e -> {
+                LOGGER.warn( "Unable to synchronise restored sprint {}/{}: {}", team, iteration, e.getMessage() );
+                return null;
+            });
+            return snapshot;
+        }
+
         try {
-            QueryItem qItem = getQueryitemByUUID( uuid );
+            return synchronizeSprint( team, iteration );
+        } catch (RuntimeException e) {
+            if( snapshot.getVersion() == 0 ) {
+                throw e;
+            }
+            LOGGER.warn( "Azure DevOps unavailable ({}), serving sprint {}/{} as of {}", e.getMessage(), team, iteration, snapshot.getWatermark() );
+            return snapshot;
+        }
+    }
 
-            LOGGER.info( qItem.getWiql() );
+    // In memory sprint snapshot, restored from the store when the sprint was synchronised before.
+    private SprintSnapshot sprintSnapshot( String team, String iteration ) {
+        return sprintSnapshots.get( team + "/" + iteration, key -> {
+            SprintSnapshot snapshot = new SprintSnapshot( syncHistory );
+            snapshotStore.load( sprintKey( team, iteration ), WORK_ITEM_LIST )
+                    .ifPresent(stored -> snapshot.restore( stored.value(), stored.watermark() ));
+            return snapshot;
+        });
+    }
 
-            WorkItemQueryResult result = webApi.getWorkItemTrackingApi().queryByWiql( team, qItem.getWiql() );
-            int[] workItemIdArray = result.getWorkItems().stream().mapToInt(WorkItemReference::getId).toArray();
+    private String sprintKey( String team, String iteration ) {
+        return "sprint/" + this.project + "/" + team + "/" + iteration;
+    }
 
-            if( workItemIdArray.length > 0 ) {
-                List<WorkItem> workItemList = getWorkItemData(workItemIdArray);
-                Map<String, WorkItem> workItemMap = workItemList.stream().collect(
-                        Collectors.toMap(WorkItem::getId, Function.identity()));
-                results.setWorkItems(workItemList);
+    /**
+     * Brings the sprint snapshot up to date.  The first call hydrates every item; later calls hydrate only
+     * the items that are new to the snapshot or changed since the last watermark.  The Azure reads run
+     * outside the snapshot's lock, so readers keep being answered from the current version meanwhile; only
+     * the patch and its store hold it.  Syncs of the same sprint don't overlap, they share one flight.
+     */
+    private SprintSnapshot synchronizeSprint( String team, String iteration ) {
+        SprintSnapshot snapshot = sprintSnapshot( team, iteration );
 
-                Map<String, String> childRef = buildChildReference(workItemMap);
-                List<String> rootElements = getRootLevelNodes(workItemList, childRef);
+        return singleFlight.execute( List.of( "synchronizeSprint", project, team, iteration ), () -> synchronizeSprint( snapshot, team, iteration ));
+    }
 
-                List<WorkTree> rootNodeTree = new ArrayList<>();
-                rootElements.forEach(id -> {
-                    WorkItem workItem = workItemMap.get(id);
-                    WorkTree nodeTree = buildNodeTree(workItem, workItemMap, null, 0);
+    private SprintSnapshot synchronizeSprint( SprintSnapshot snapshot, String team, String iteration ) {
+        WorkItemProjection projection = WorkItemProjection.of( sprintFields, sprintRelations );
 
-                    int d =  getMaxDepth( nodeTree );
+        Instant syncStart = Instant.now();
+        String wiql = "select [System.Id], [System.WorkItemType], [System.Title], [System.AssignedTo], [System.State] from WorkItems where [System.TeamProject] = @project and [System.WorkItemType] <> '' and [System.State] <> 'Removed' and [System.IterationPath] UNDER '" + this.project + "\\" + iteration + "'" ;
 
-                    padNodeTree( nodeTree, d );
+        int[] currentIds = metrics.time( "wiql", AdaptorMetrics.SPRINT_ITEMS, team, () -> queryWorkItemIds( team, wiql ));
+        int[] fetchIds = currentIds;
+        if( snapshot.getWatermark() != null ) {
+            // WIQL compares dates at day precision; the watermark is moved back a day to stay clear of time zones.
+            String changedSince = DateTimeFormatter.ISO_LOCAL_DATE.format( snapshot.getWatermark().atOffset( ZoneOffset.UTC ).minusDays(1) );
+            int[] changedIds = metrics.time( "wiql", AdaptorMetrics.SPRINT_ITEMS, team, () -> queryWorkItemIds( team, wiql + " and [System.ChangedDate] >= '" + changedSince + "'" ));
+            fetchIds = snapshot.getIdsToFetch( currentIds, changedIds );
+        }
 
-                    rootNodeTree.add(nodeTree);
-                });
-                results.setWorkPaths(rootNodeTree);
+        int[] toFetch = fetchIds;
+        List<WorkItem> fetched = toFetch.length > 0
+                ? metrics.time( "hydrate", AdaptorMetrics.SPRINT_ITEMS, team, () -> getWorkItemData( toFetch, projection ))
+                : new ArrayList<>();
+        metrics.hydrated( AdaptorMetrics.SPRINT_ITEMS, team, fetched.size() );
+
+        // Ancestors from other iterations join the sprint, re-read through the entity cache on every sync so they stay current.
+        int[] sprintIds = currentIds;
+        if( completeHierarchy ) {
+            Map<String, WorkItem> sprintItems = new LinkedHashMap<>();
+            fetched.forEach(item -> sprintItems.put( item.getId(), item ));
+            for (int id : currentIds) {
+                WorkItem item = sprintItems.containsKey( Integer.toString( id )) ? null : snapshot.getItem( Integer.toString( id ));
+                if( item != null ) {
+                    sprintItems.put( item.getId(), item );
+                }
             }
+            List<WorkItem> ancestors = metrics.time( "ancestors", AdaptorMetrics.SPRINT_ITEMS, team, () -> fetchAncestors( sprintItems.values(), projection ));
+            fetched = new ArrayList<>( fetched );
+            fetched.addAll( ancestors );
+            sprintIds = IntStream.concat( Arrays.stream( currentIds ), ancestors.stream().mapToInt(item -> Integer.parseInt( item.getId() ))).toArray();
+        }
 
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
+        // Linking, the tree rebuild and its padding all happen in the patch.
+        int[] patchIds = sprintIds;
+        List<WorkItem> patchItems = fetched;
+        synchronized (snapshot) {
+            if( metrics.time( "tree", AdaptorMetrics.SPRINT_ITEMS, team, () -> snapshot.patch( patchIds, patchItems, !projection.isRelations(), syncStart ))) {
+                LOGGER.debug( "Sprint {}/{} at version {}, {} items hydrated", team, iteration, snapshot.getVersion(), patchItems.size() );
+                snapshotStore.save( sprintKey( team, iteration ), snapshot.toResults().getWorkItems(), syncStart );
+            }
         }
 
-        return results;
+        return snapshot;
     }
 
-    private void padNodeTree(WorkTree node, int targetDepth) {
-        if( node != null && node.getChildren().isEmpty() && node.getLevel() != targetDepth ) {
-            padNodeDepth( node, node.getExternalId(), node.getLevel(), targetDepth );
-        }
+    private int[] queryWorkItemIds( String team, String wiql ) {
+        return singleFlight.execute( List.of( "queryByWiql", project, team, wiql ), () -> {
+            WorkItemQueryResult result = scheduler.call( organization, "queryByWiql", () -> webApi().getWorkItemTrackingApi().queryByWiql( team, wiql ));
+            return result.getWorkItems().stream().mapToInt(WorkItemReference::getId).toArray();
+        });
+    }
+
+    public WorkItemResults getQueryWorkItemResults(String uuid, String team ) {
+        return singleFlight.execute( List.of( "queryResults", project, uuid, team ),
+                () -> withStoredFallback( queryKey( uuid, team ), WORK_ITEM_RESULTS, () -> runQuery( uuid, team )));
+    }
 
-        node.getChildren().forEach(i -> padNodeTree(i, targetDepth));
+    private String queryKey( String uuid, String team ) {
+        return "query/" + this.project + "/" + uuid + "/" + team;
     }
 
-    private void padNodeDepth( WorkTree node, String id, int currentDepth, int targetDepth ) {
-        WorkTree pad = new WorkTree();
-        pad.setLevel( currentDepth + 1 );
-        pad.setParentId( id );
-        pad.setExternalId("P" + id + "-L" + ( currentDepth + 1 ));
-        pad.setChildren( new ArrayList<>());
+    private WorkItemResults runQuery(String uuid, String team ) {
+        WorkItemResults results = new WorkItemResults();
 
-        node.getChildren().add(pad);
+        QueryItem qItem = getQueryitemByUUID( uuid );
 
-        if( currentDepth + 1 < targetDepth ) {
-            padNodeDepth( pad, id, currentDepth + 1, targetDepth );
-        }
+        LOGGER.info( qItem.getWiql() );
 
-    }
+        int[] workItemIdArray = metrics.time( "wiql", AdaptorMetrics.QUERY_RESULTS, team, () -> queryWorkItemIds( team, qItem.getWiql() ));
 
-    private WorkTree buildNodeTree( WorkItem sourceNode, Map<String, WorkItem> workItemMap, String parentId, int level ) {
-        int nextLevel = level + 1;
+        if( workItemIdArray.length > 0 ) {
+            WorkItemProjection projection = WorkItemProjection.of( queryFields, queryRelations );
+            List<WorkItem> workItemList = metrics.time( "hydrate", AdaptorMetrics.QUERY_RESULTS, team, () -> getWorkItemData(workItemIdArray, projection ));
+            metrics.hydrated( AdaptorMetrics.QUERY_RESULTS, team, workItemList.size() );
+            Map<String, WorkItem> hydratedMap = new LinkedHashMap<>();
+            workItemList.forEach(workItem -> hydratedMap.put( workItem.getId(), workItem ));
 
-        WorkTree nodeTree = new WorkTree();
-        nodeTree.setExternalId( sourceNode.getId() );
-        nodeTree.setParentId( parentId );
+            Map<String, WorkItem> workItemMap = hydratedMap;
+            if( completeHierarchy ) {
+                metrics.time( "ancestors", AdaptorMetrics.QUERY_RESULTS, team, () -> fetchAncestors( workItemList, projection ))
+                        .forEach(ancestor -> hydratedMap.put( ancestor.getId(), ancestor ));
+                workItemMap = projection.isRelations() ? hydratedMap : WorkTreeBuilder.linkChildrenByParent( hydratedMap );
+            }
 
-        if( sourceNode.getChildren() != null ) {
-            List<WorkTree> childElements = new ArrayList<>();
-            sourceNode.getChildren().forEach(id -> {
-                WorkItem workItem = workItemMap.get( id );
-                if( workItem != null ) {
-                    WorkTree childElemTree = buildNodeTree(workItem, workItemMap, nodeTree.getExternalId(), nextLevel);
-                    childElemTree.setLevel(nextLevel);
-                    childElements.add(childElemTree);
-                }
-            });
-            nodeTree.setChildren( childElements );
+            Map<String, WorkItem> treeMap = workItemMap;
+            results.setWorkItems(new ArrayList<>( treeMap.values() ));
+            results.setWorkPaths(metrics.time( "tree", AdaptorMetrics.QUERY_RESULTS, team, () -> WorkTreeBuilder.build( treeMap )));
         }
+        metrics.results( AdaptorMetrics.QUERY_RESULTS, team, results.getWorkItems().size() );
 
-        return nodeTree;
+        return results;
     }
 
-    private Map<String, String> buildChildReference(Map<String, WorkItem> workItemMap) {
-        Map<String, String> childRef = new HashMap<>();
-        workItemMap.values().stream().filter(item -> item.getChildren() != null).forEach(item -> {
-            for (String id : item.getChildren()) {
-                childRef.put(id, item.getId());
-            }
-        });
-
-        return childRef;
+    /**
+     * Runs a saved query like getQueryWorkItemResults, but hands the work items to the stream batch by batch
+     * as they are hydrated, followed by the trees.  Items hydrated without relations only get their children
+     * once every batch is in, the ones that have children are then sent again.  When Azure fails, the stored
+     * results of the query are sent instead, which replace whatever was sent before the failure.
+     */
+    public void streamQueryWorkItemResults( String uuid, String team, WorkItemResultsStream stream ) {
+        WorkItemResults[] streamed = new WorkItemResults[1];
+        WorkItemResults results = withStoredFallback( queryKey( uuid, team ), WORK_ITEM_RESULTS,
+                () -> streamed[0] = streamQuery( uuid, team, stream ));
+        if( results != streamed[0] ) {
+            stream.items( results.getWorkItems() );
+            stream.paths( results.getWorkPaths() );
+        }
+        stream.complete( 0 );
+        metrics.results( AdaptorMetrics.QUERY_STREAM, team, results.getWorkItems().size() );
     }
 
-    private List<String> getRootLevelNodes(List<WorkItem> workItemList, Map<String, String> childRef) {
-        List<String> rootNodes = new ArrayList<>();
-
-        workItemList.forEach(item -> {
-            if (!childRef.containsKey( item.getId() )) {
-                rootNodes.add( item.getId() );
-            }
+    private WorkItemResults streamQuery( String uuid, String team, WorkItemResultsStream stream ) {
+        QueryItem qItem = getQueryitemByUUID( uuid );
+        int[] workItemIdArray = metrics.time( "wiql", AdaptorMetrics.QUERY_STREAM, team, () -> queryWorkItemIds( team, qItem.getWiql() ));
+        WorkItemProjection projection = WorkItemProjection.of( queryFields, queryRelations );
+
+        // The hydrate phase includes writing each batch to the client.
+        Map<String, io.noda.adaptor.common.model.WorkItem> workItemMap = new LinkedHashMap<>();
+        metrics.time( "hydrate", AdaptorMetrics.QUERY_STREAM, team, () -> {
+            resolveWorkItems( workItemIdArray, projection, batch -> {
+                batch.forEach(item -> workItemMap.put( item.getId(), item ));
+                stream.items( batch );
+            });
+            return workItemMap;
         });
+        metrics.hydrated( AdaptorMetrics.QUERY_STREAM, team, workItemMap.size() );
 
-        return rootNodes;
-    }
-
-    public QueryItem getQueryitemByUUID( String uuid ) {
-        List<QueryItem> queryItems = getQueries();
-        return queryItems.stream().filter(item -> item.getUuid().equalsIgnoreCase(uuid)).findFirst().orElse(QueryItem.builder().build());
-    }
+        if( completeHierarchy ) {
+            List<io.noda.adaptor.common.model.WorkItem> ancestors = metrics.time( "ancestors", AdaptorMetrics.QUERY_STREAM, team,
+                    () -> fetchAncestors( new ArrayList<>( workItemMap.values() ), projection ));
+            ancestors.forEach(ancestor -> workItemMap.put( ancestor.getId(), ancestor ));
+            stream.items( ancestors );
+        }
 
-    public List<io.noda.adaptor.common.model.WorkItem> getWorkItemData(int[] ids ) {
-        ArrayList<io.noda.adaptor.common.model.WorkItem> teamNames = new ArrayList<>();
-        try {
-            WorkItemList items = webApi.getWorkItemTrackingApi().getWorkItems(ids, WorkItemExpand.ALL);
-            items.getWorkItems().forEach(item -> teamNames.add(
-                    io.noda.adaptor.common.model.WorkItem.builder()
-                            .id( Integer.toString( item.getId() ))
-                            .parent( convertParentRelations(  item.getRelations() ))
-                            .name( item.getFields().getSystemTitle() )
-                            .type( convertWorkItemType( item.getFields().getSystemWorkItemType()) )
-                            .remoteRef( "https://dev.azure.com/" + this.organization + "/" +  item.getFields().getSystemTeamProject() + "/_workitems/edit/" + item.getId() + "/")
-                            .state( convertWorkItemState(  item.getFields().getSystemState()) )
-                            .children( convertChildRelations(  item.getRelations() ))
-                            .iteration( convertIterationPath( item.getFields().getSystemIterationPath() ))
-                            .build()));
-        } catch (AzDException e) {
-            throw new RuntimeException(e);
+        Map<String, io.noda.adaptor.common.model.WorkItem> linkedMap = workItemMap;
+        if( !projection.isRelations() ) {
+            linkedMap = WorkTreeBuilder.linkChildrenByParent( workItemMap );
+            stream.items( linkedMap.values().stream().filter(item -> item != workItemMap.get( item.getId() )).toList() );
         }
 
-        return teamNames;
-    }
+        Map<String, io.noda.adaptor.common.model.WorkItem> treeMap = linkedMap;
+        List<WorkTree> paths = metrics.time( "tree", AdaptorMetrics.QUERY_STREAM, team, () -> WorkTreeBuilder.build( treeMap ));
+        stream.paths( paths );
 
-    private WorkItemType convertWorkItemType( String azureType ) {
-        return switch (azureType) {
-            case "Feature" -> WorkItemType.FEATURE;
-            case "User Story" -> WorkItemType.STORY;
-            case "Issue" -> WorkItemType.ISSUE;
-            case "Task" -> WorkItemType.TASK;
-            case "Bug" -> WorkItemType.BUG;
-            default -> WorkItemType.EPIC;
-        };
-    }
+        WorkItemResults results = new WorkItemResults();
+        results.setWorkItems( new ArrayList<>( treeMap.values() ));
+        results.setWorkPaths( paths );
 
-    private WorkItemState convertWorkItemState( String azureType ) {
-        return switch (azureType) {
-            case "Active" -> WorkItemState.IN_PROGRESS;
-            case "Resolved", "Closed" -> WorkItemState.COMPLETED;
-            case "Removed" -> WorkItemState.REMOVED;
-            default -> WorkItemState.BACKLOG;
-        };
+        return results;
     }
 
-    private String convertParentRelations(List<WorkItemRelations> relations ) {
-        var ref = new Object() {
-            String parent;
-        };
+    /**
+     * Ancestors of the items that are not part of the set, fetched a level at a time: the parents missing
+     * from the set are read in batches, then their missing parents, up to hierarchy.max-depth levels.
+     * The walk stops at items without a parent, whatever their type: unknown types are mapped to epics, so the
+     * mapped type says nothing about the top of a hierarchy.  Known items come from the entity cache.
+     */
+    private List<io.noda.adaptor.common.model.WorkItem> fetchAncestors( Collection<io.noda.adaptor.common.model.WorkItem> items, WorkItemProjection projection ) {
+        Set<String> known = new HashSet<>();
+        items.forEach(item -> known.add( item.getId() ));
+
+        List<io.noda.adaptor.common.model.WorkItem> ancestors = new ArrayList<>();
+        Collection<io.noda.adaptor.common.model.WorkItem> level = items;
+        for (int depth = 0; depth < hierarchyMaxDepth && !level.isEmpty(); depth++) {
+            int[] missing = level.stream()
+                    .filter(item -> item.getParent() != null && !known.contains( item.getParent() ))
+                    .mapToInt(item -> WorkItemGraph.parseId( item.getParent() ))
+                    .filter(id -> id != WorkItemGraph.NONE)
+                    .distinct()
+                    .toArray();
+            if( missing.length == 0 ) {
+                break;
+            }
 
-        relations.stream()
-                .filter(rel -> rel.getAttributes().getName().equalsIgnoreCase("Parent"))
-                .forEach( relation -> ref.parent = extractWorkItemIdFromURI( relation.getUrl() ));
+            level = getWorkItemData( missing, projection );
+            level.forEach(item -> known.add( item.getId() ));
+            ancestors.addAll( level );
+        }
 
-        return ref.parent;
+        return ancestors;
     }
 
-    private List<String> convertChildRelations(List<WorkItemRelations> relations ) {
-        List<String> children = new ArrayList<>();
+    public QueryItem getQueryitemByUUID( String uuid ) {
+        return queryIndex.find( uuid ).orElseGet(() -> singleFlight.execute( List.of( "query", project, uuid ), () -> loadQueryItem( uuid )));
+    }
 
-        relations.stream()
-                .filter(rel -> rel.getAttributes().getName().equalsIgnoreCase("Child"))
-                .forEach( relation -> children.add( extractWorkItemIdFromURI( relation.getUrl() )));
+    // Index miss: fetch the single query by id or path instead of re-listing the whole catalog.
+    private QueryItem loadQueryItem( String uuidOrPath ) {
+        QueryHierarchyItem query = scheduler.call( organization, "getQuery", () -> webApi().getWorkItemTrackingApi().getQuery( uuidOrPath, 0, QueryExpand.ALL, false, false ));
+        QueryItem queryItem = QueryItem.builder().path(query.getPath()).uuid(query.getId()).wiql(query.getWiql()).build();
+        queryIndex.put( queryItem );
 
-        return children;
+        return queryItem;
     }
 
-    private String convertIterationPath(  String path ) {
-        String iterationName = "";
+    public List<io.noda.adaptor.common.model.WorkItem> getWorkItemData(int[] ids ) {
+        return getWorkItemData( ids, WorkItemProjection.modelFields() );
+    }
+
+    /**
+     * Work items in the order of the ids.  Items cached at their current revision are served from the entity
+     * cache; only the ones missing or changed are hydrated.
+     */
+    public List<io.noda.adaptor.common.model.WorkItem> getWorkItemData(int[] ids, WorkItemProjection projection ) {
+        Map<Integer, io.noda.adaptor.common.model.WorkItem> known = new HashMap<>();
+        resolveWorkItems( ids, projection, batch -> batch.forEach(item -> known.put( Integer.parseInt( item.getId() ), item )));
+
+        List<io.noda.adaptor.common.model.WorkItem> workItems = new ArrayList<>( ids.length );
+        for (int id : ids) {
+            io.noda.adaptor.common.model.WorkItem item = known.get( id );
+            if( item != null ) {
+                workItems.add( item );
+            }
+        }
 
-        if( path.contains("\\")) {
-            iterationName = path.split("\\\\")[1];
+        if( projection.isRelations() ) {
+            return workItems;
         }
-        return iterationName;
+
+        // Field projections carry no relations, so the child lists are rebuilt from the parent links in the result set.
+        Map<String, io.noda.adaptor.common.model.WorkItem> workItemMap = new LinkedHashMap<>();
+        workItems.forEach(item -> workItemMap.put( item.getId(), item ));
+
+        return new ArrayList<>( WorkTreeBuilder.linkChildrenByParent( workItemMap ).values() );
     }
 
-    private String extractWorkItemIdFromURI( String uri ) {
-        Pattern pattern =  Pattern.compile("(\\d+)(?!.*\\d)");
+    /**
+     * Hands the work items to the consumer in batches: first the ones cached at their current revision, then
+     * the missing or changed ones as they are hydrated.
+     */
+    private void resolveWorkItems( int[] ids, WorkItemProjection projection, Consumer<List<io.noda.adaptor.common.model.WorkItem>> onBatch ) {
+        Map<Integer, io.noda.adaptor.common.model.WorkItem> cached = new LinkedHashMap<>();
+        List<Integer> unchecked = new ArrayList<>();
+        for (int id : ids) {
+            WorkItemEntityCache.Entry entry = entityCache.get( id, projection );
+            if( entry != null && entityCache.isFresh( entry )) {
+                cached.put( id, entry.item() );
+            } else if( entry != null ) {
+                unchecked.add( id );
+            }
+        }
 
-        Matcher matcher = pattern.matcher(uri);
+        // Cached but not recently checked: an id & revision read tells which are still at their cached revision.
+        if( !unchecked.isEmpty() ) {
+            int[] uncheckedIds = unchecked.stream().mapToInt(Integer::intValue).toArray();
+            for (int[] revision : hydrator.hydrate( uncheckedIds, this::fetchRevisionBatch )) {
+                io.noda.adaptor.common.model.WorkItem item = entityCache.atRevision( revision[0], projection, revision[1] );
+                if( item != null ) {
+                    cached.put( revision[0], item );
+                }
+            }
+        }
+        if( !cached.isEmpty() ) {
+            onBatch.accept( new ArrayList<>( cached.values() ));
+        }
 
-        if( matcher.find() ) {
-            return matcher.group(1);
+        int[] missing = Arrays.stream( ids ).filter(id -> !cached.containsKey( id )).distinct().toArray();
+        if( missing.length > 0 ) {
+            hydrator.hydrate( missing, batch -> fetchWorkItemBatch( batch, projection ), onBatch );
         }
+        LOGGER.debug( "{} work items requested, {} served from the entity cache", ids.length, cached.size() );
+    }
 
-        return "";
+    private List<io.noda.adaptor.common.model.WorkItem> fetchWorkItemBatch( int[] batch, WorkItemProjection projection ) {
+        return singleFlight.execute( List.of( "getWorkItems", project, projection, Arrays.toString( batch )), () -> getWorkItemBatch( batch, projection ));
     }
 
-    private int getMaxDepth( WorkTree treeNode ) {
-        var ref = new Object() {
-            int depth = treeNode.getLevel();
-        };
+    private List<io.noda.adaptor.common.model.WorkItem> getWorkItemBatch(int[] ids, WorkItemProjection projection ) {
+        ArrayList<io.noda.adaptor.common.model.WorkItem> teamNames = new ArrayList<>();
+        WorkItemList items = scheduler.call( organization, "getWorkItems", () -> projection.isRelations()
+                ? webApi().getWorkItemTrackingApi().getWorkItems(ids, WorkItemExpand.RELATIONS)
+                : webApi().getWorkItemTrackingApi().getWorkItems(ids, projection.getFields()));
+        metrics.mapBatch( projection, ids.length, () -> {
+            items.getWorkItems().forEach(item -> {
+                io.noda.adaptor.common.model.WorkItem workItem = mapper.toWorkItem( item, projection.isRelations() );
+                entityCache.put( item.getId(), projection, item.getRev(), workItem );
+                teamNames.add( workItem );
+            });
+            return teamNames;
+        });
 
-        treeNode.getChildren().stream().mapToInt(this::getMaxDepth).filter(childDepth -> childDepth > ref.depth)
-                .forEach(childDepth -> ref.depth = childDepth);
+        return teamNames;
+    }
 
-        return ref.depth;
+    // Id & revision pairs, read with only those two fields.
+    private List<int[]> fetchRevisionBatch( int[] batch ) {
+        return singleFlight.execute( List.of( "getWorkItemRevisions", project, Arrays.toString( batch )), () -> {
+            WorkItemList items = scheduler.call( organization, "getWorkItemRevisions",
+                    () -> webApi().getWorkItemTrackingApi().getWorkItems( batch, REVISION_FIELDS ));
+            return items.getWorkItems().stream().map(item -> new int[] { item.getId(), item.getRev() }).toList();
+        });
     }
 }
@@ -0,0 +1,377 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.azd.exceptions.AzDException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Every Azure DevOps call goes through here, per organization:
+ *
+ *   - at most "max-concurrent" calls are in flight, the others queue;
+ *   - calls are started at "rate-per-second" on average, with bursts of up to "burst" calls (token bucket);
+ *   - throttled and transient failures are retried with exponential backoff and jitter.  A Retry-After
+ *     given by Azure is honoured up to "max-backoff", and it holds back every call to the organization, not
+ *     only the retried one;
+ *   - after "failure-threshold" consecutive failed attempts the circuit opens, and calls fail straight away
+ *     with AzureUnavailableException for "open-for".  The callers then serve their stored data.  Once
+ *     "open-for" has passed a single trial call is let through; its outcome closes or re-opens the circuit.
+ *
+ * Each attempt is timed as azure.calls, tagged with the operation and its outcome (success, throttled,
+ * transient or error).
+ *
+ * The azd client does not expose the HTTP status or headers, so throttling and Retry-After are read from
+ * the exception messages.  Other failures (authentication, unknown items, ...) are not retried; Azure did
+ * answer them, so for the circuit they count as a success.
+ */
+@Component
+public class AzureCallScheduler {
+
+    @FunctionalInterface
+    public interface AzureCall<T> {
+        T call() throws AzDException;
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class AzureUnavailableException extends RuntimeException {
+
+        public AzureUnavailableException( String message ) {
+            super( message );
+        }
+    }
+
+    private static final String[] THROTTLED_MARKERS = { "429", "toomanyrequests", "throttl", "rate limit" };
+
+    // A 5xx only counts next to a status label or its reason phrase, ids and counts in other messages do not match.
+    private static final Pattern TRANSIENT = Pattern.compile(
+            "(status(\\s*code)?|http(/[\\d.]+)?)\\W{0,3}50[0234]\\b|\\b50[0234]\\W{0,3}(internal|service|bad|gateway)"
+                    + "|service ?unavailable|bad ?gateway|gateway ?time-?out|timed out", Pattern.CASE_INSENSITIVE );
+
+    private static final Pattern RETRY_AFTER = Pattern.compile( "retry-after\\W{0,3}(\\d{1,5})", Pattern.CASE_INSENSITIVE );
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${azure-devops.scheduler.max-concurrent:8}")
+    int maxConcurrent;
+
+    @Value("${azure-devops.scheduler.rate-per-second:20}")
+    double ratePerSecond;
+
+    @Value("${azure-devops.scheduler.burst:40}")
+    int burst;
+
+    @Value("${azure-devops.scheduler.max-attempts:4}")
+    int maxAttempts;
+
+    @Value("${azure-devops.scheduler.initial-backoff:500ms}")
+    Duration initialBackoff;
+
+    @Value("${azure-devops.scheduler.max-backoff:30s}")
+    Duration maxBackoff;
+
+    @Value("${azure-devops.scheduler.queue-timeout:30s}")
+    Duration queueTimeout;
+
+    @Value("${azure-devops.scheduler.circuit.failure-threshold:5}")
+    int failureThreshold;
+
+    @Value("${azure-devops.scheduler.circuit.open-for:30s}")
+    Duration openFor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * @param operation name of the Azure API called, the round trips are timed under it (azure.calls)
+     */
+    public <T> T call( String organization, String operation, AzureCall<T> call ) {
+        Limiter limiter = limiters.computeIfAbsent( organization, Limiter::new );
+
+        for (int attempt = 1; ; attempt++) {
+            limiter.enter();
+            Timer.Sample sample = Timer.start( meterRegistry );
+            try {
+                T result = limiter.run( call );
+                sample.stop( roundTrip( organization, operation, "success" ));
+                limiter.answered();
+                return result;
+            } catch (AzDException | RuntimeException e) {
+                boolean throttled = isThrottled( e );
+                if( !throttled && !isTransient( e )) {
+                    sample.stop( roundTrip( organization, operation, "error" ));
+                    limiter.answered();
+                    throw e instanceof RuntimeException runtime ? runtime : new RuntimeException( e );
+                }
+
+                sample.stop( roundTrip( organization, operation, throttled ? "throttled" : "transient" ));
+                if( throttled ) {
+                    limiter.throttled.increment();
+                }
+                Duration retryAfter = retryAfter( e );
+                if( retryAfter != null && retryAfter.compareTo( maxBackoff ) > 0 ) {
+                    retryAfter = maxBackoff;
+                }
+                // Every failed attempt counts, the last one too: it may be the half-open trial that has to be settled.
+                boolean open = limiter.isOpenAfterFailure();
+                if( open || attempt >= maxAttempts ) {
+                    throw new AzureUnavailableException( "Azure DevOps call to " + organization + " failed after " + attempt + " attempts: " + e.getMessage() );
+                }
+
+                Duration backoff = retryAfter != null ? retryAfter : backoff( attempt );
+                LOGGER.debug( "Azure DevOps call to {} {}, retrying in {}", organization, throttled ? "throttled" : "failed", backoff );
+                if( retryAfter != null ) {
+                    limiter.pause( retryAfter );
+                }
+                limiter.retries.increment();
+                sleep( backoff );
+            }
+        }
+    }
+
+    public boolean isOpen( String organization ) {
+        Limiter limiter = limiters.get( organization );
+        return limiter != null && limiter.isOpen();
+    }
+
+    /**
+     * @return when Azure last answered a call to the organization, empty before the first answer
+     */
+    public Optional<Instant> lastAnswered( String organization ) {
+        Limiter limiter = limiters.get( organization );
+        return limiter == null ? Optional.empty() : Optional.ofNullable( limiter.answeredAt() );
+    }
+
+    private Timer roundTrip( String organization, String operation, String outcome ) {
+        return Timer.builder( "azure.calls" )
+                .description( "Azure DevOps round trips" )
+                .tag( "organization", organization )
+                .tag( "operation", operation )
+                .tag( "outcome", outcome )
+                .publishPercentileHistogram()
+                .register( meterRegistry );
+    }
+
+    // Exponential backoff with full jitter, capped at max-backoff.
+    Duration backoff( int attempt ) {
+        long ceiling = Math.min( maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min( attempt - 1, 20 ));
+        return Duration.ofMillis( ceiling / 2 + ThreadLocalRandom.current().nextLong( ceiling / 2 + 1 ));
+    }
+
+    static boolean isThrottled( Throwable failure ) {
+        return mentions( failure, THROTTLED_MARKERS );
+    }
+
+    static boolean isTransient( Throwable failure ) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if( cause instanceof IOException ) {
+                return true;
+            }
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if( cause.getMessage() != null && TRANSIENT.matcher( cause.getMessage() ).find() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Duration retryAfter( Throwable failure ) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if( cause.getMessage() != null ) {
+                Matcher matcher = RETRY_AFTER.matcher( cause.getMessage() );
+                if( matcher.find() ) {
+                    return Duration.ofSeconds( Long.parseLong( matcher.group(1) ));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean mentions( Throwable failure, String[] markers ) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage() == null ? "" : cause.getMessage().toLowerCase( Locale.ROOT );
+            for (String marker : markers) {
+                if( message.contains( marker )) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void sleep( Duration duration ) {
+        try {
+            TimeUnit.NANOSECONDS.sleep( duration.toNanos() );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AzureUnavailableException( "Interrupted while waiting on Azure DevOps" );
+        }
+    }
+
+    /**
+     * Concurrency limit, token bucket and circuit of one organization.
+     */
+    private class Limiter {
+
+        private final String organization;
+
+        private final Semaphore permits;
+
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private final Counter throttled;
+
+        private final Counter retries;
+
+        private final Counter rejected;
+
+        private double tokens;
+
+        private long refilledAt = System.nanoTime();
+
+        private long pausedUntil = refilledAt;
+
+        private int consecutiveFailures;
+
+        private long openUntil;
+
+        private boolean open;
+
+        private boolean trialRunning;
+
+        private Instant answeredAt;
+
+        Limiter( String organization ) {
+            this.organization = organization;
+            this.permits = new Semaphore( Math.max( 1, maxConcurrent ), true );
+            this.tokens = Math.max( 1, burst );
+
+            Gauge.builder( "azure.calls.queued", queued, AtomicInteger::get )
+                    .description( "Azure DevOps calls waiting for a rate or concurrency slot" )
+                    .tag( "organization", organization ).register( meterRegistry );
+            Gauge.builder( "azure.calls.circuit.open", this, limiter -> limiter.isOpen() ? 1 : 0 )
+                    .description( "1 while calls to the organization are short-circuited" )
+                    .tag( "organization", organization ).register( meterRegistry );
+            throttled = Counter.builder( "azure.calls.throttled" ).tag( "organization", organization ).register( meterRegistry );
+            retries = Counter.builder( "azure.calls.retries" ).tag( "organization", organization ).register( meterRegistry );
+            rejected = Counter.builder( "azure.calls.rejected" ).tag( "organization", organization ).register( meterRegistry );
+        }
+
+        // Waits for a token, then for a concurrency permit, failing fast while the circuit is open.
+        void enter() {
+            admit();
+
+            queued.incrementAndGet();
+            try {
+                sleep( Duration.ofNanos( reserveToken() ));
+                if( !permits.tryAcquire( queueTimeout.toNanos(), TimeUnit.NANOSECONDS )) {
+                    released();
+                    throw new AzureUnavailableException( "No Azure DevOps call slot for " + organization + " within " + queueTimeout );
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                released();
+                throw new AzureUnavailableException( "Interrupted while waiting on Azure DevOps" );
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        <T> T run( AzureCall<T> call ) throws AzDException {
+            try {
+                return call.call();
+            } finally {
+                permits.release();
+            }
+        }
+
+        private synchronized void admit() {
+            if( !open ) {
+                return;
+            }
+            if( System.nanoTime() - openUntil < 0 || trialRunning ) {
+                rejected.increment();
+                throw new AzureUnavailableException( "Azure DevOps circuit for " + organization + " is open" );
+            }
+            trialRunning = true;
+        }
+
+        // Reserves the next token and returns how long to wait for it; the deficit is the queue of reservations.
+        private synchronized long reserveToken() {
+            long now = System.nanoTime();
+            tokens = Math.min( Math.max( 1, burst ), tokens + ( now - refilledAt ) * ratePerSecond / 1e9 );
+            refilledAt = now;
+            tokens -= 1;
+
+            long tokenWait = tokens >= 0 ? 0 : (long) ( -tokens / ratePerSecond * 1e9 );
+            return Math.max( tokenWait, pausedUntil - now );
+        }
+
+        synchronized void pause( Duration duration ) {
+            long until = System.nanoTime() + duration.toNanos();
+            if( until - pausedUntil > 0 ) {
+                pausedUntil = until;
+            }
+        }
+
+        synchronized void answered() {
+            answeredAt = Instant.now();
+            consecutiveFailures = 0;
+            if( open ) {
+                LOGGER.info( "Azure DevOps circuit for {} closed", organization );
+            }
+            open = false;
+            trialRunning = false;
+        }
+
+        // A call that never reached Azure says nothing about the circuit.
+        synchronized void released() {
+            trialRunning = false;
+        }
+
+        synchronized boolean isOpenAfterFailure() {
+            consecutiveFailures++;
+            if( trialRunning || consecutiveFailures >= failureThreshold ) {
+                if( !open ) {
+                    LOGGER.warn( "Azure DevOps circuit for {} opened for {} after {} failed attempts", organization, openFor, consecutiveFailures );
+                }
+                open = true;
+                trialRunning = false;
+                openUntil = System.nanoTime() + openFor.toNanos();
+            }
+            return open;
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+
+        synchronized Instant answeredAt() {
+            return answeredAt;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.azd.utils.AzDClientApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the Azure DevOps clients used by the adaptor.  A single client is built per organization/project
+ * and shared by every request, so the underlying HTTP connections are kept alive and reused instead of
+ * being re-established on each call.  The azd client builds its own JDK HTTP client, which keeps idle
+ * connections open (20 minutes by default, -Djdk.httpclient.keepalive.timeout at launch to change it).
+ */
+@Component
+public class AzureClientProvider {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${azure-devops.token}")
+    private String personalAccessToken;
+
+    // Health checks are calls like any other, rate limited and short-circuited while Azure is down.
+    @Autowired
+    AzureCallScheduler scheduler;
+
+    @Value("${azure-devops.health.answered-within:1m}")
+    Duration answeredWithin;
+
+    private final Map<String, AzDClientApi> clients = new ConcurrentHashMap<>();
+
+    public AzDClientApi getClient( String organization, String project ) {
+        return clients.computeIfAbsent( clientKey( organization, project ), key -> connect( organization, project ));
+    }
+
+    /**
+     * Drops the cached client so the next call builds a fresh one.
+     */
+    public void reconnect( String organization, String project ) {
+        if( clients.remove( clientKey( organization, project )) != null ) {
+            LOGGER.info( "Azure DevOps client for {}/{} discarded, reconnecting on next use", organization, project );
+        }
+    }
+
+    /**
+     * Healthy when Azure answered a call of the organization within "answered-within"; otherwise a single
+     * project read is sent with the shared client through the scheduler, so probes only take from the rate
+     * budget while the adaptor is idle and never reach Azure while its circuit is open.  A failed check
+     * discards the client.
+     */
+    public boolean isHealthy( String organization, String project ) {
+        if( scheduler.isOpen( organization )) {
+            return false;
+        }
+        Instant answeredAt = scheduler.lastAnswered( organization ).orElse( Instant.MIN );
+        if( answeredAt.isAfter( Instant.now().minus( answeredWithin ))) {
+            return true;
+        }
+
+        try {
+            scheduler.call( organization, "healthCheck", () -> getClient( organization, project ).getCoreApi().getProject( project ));
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn( "Azure DevOps health check failed for {}/{}: {}", organization, project, e.getMessage() );
+            reconnect( organization, project );
+            return false;
+        }
+    }
+
+    private AzDClientApi connect( String organization, String project ) {
+        LOGGER.info( "Connecting Azure DevOps client for {}/{}", organization, project );
+        return new AzDClientApi( organization, project, personalAccessToken );
+    }
+
+    private String clientKey( String organization, String project ) {
+        return organization + "/" + project;
+    }
+}
@@ -0,0 +1,41 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of the shared Azure DevOps client on the actuator health endpoint.  A recent answer from
+ * Azure counts as a passed check, so busy adaptors aren't probed at all.  A failed check discards the client,
+ * so the next request reconnects.  While the circuit is open the check is not sent and the health is down,
+ * with the time Azure last answered.
+ */
+@Component("azureDevOps")
+public class AzureDevOpsHealthIndicator implements HealthIndicator {
+
+    @Value("${azure-devops.organization}")
+    String organization;
+
+    @Value("${azure-devops.project}")
+    String project;
+
+    @Autowired
+    AzureClientProvider clientProvider;
+
+    @Autowired
+    AzureCallScheduler scheduler;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = clientProvider.isHealthy( organization, project ) ? Health.up() : Health.down();
+
+        builder.withDetail( "organization", organization )
+                .withDetail( "project", project )
+                .withDetail( "circuitOpen", scheduler.isOpen( organization ));
+        scheduler.lastAnswered( organization ).ifPresent(answeredAt -> builder.withDetail( "lastAnswered", answeredAt ));
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,74 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptors per project of the configured organization.  The configured project is answered by the
+ * AzureAdaptor bean; any other project gets its own adaptor, built on first use and kept, with its own
+ * client, metadata caches and sprint snapshots.  Work item ids are unique within an organization, so the
+ * entity cache stays shared by all of them.
+ *
+ * Only the projects the organization lists are accepted, which also bounds the number of adaptors.
+ */
+@Component
+public class AzureTenants {
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public static class UnknownProjectException extends RuntimeException {
+
+        public UnknownProjectException( String organization, String project ) {
+            super( "Project " + project + " is not part of organization " + organization );
+        }
+    }
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    AzureAdaptor adaptor;
+
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+
+    private final Map<String, AzureAdaptor> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * @return the adaptor of the project, the configured one when no project is given
+     */
+    public AzureAdaptor get( String project ) {
+        if( project == null || project.isBlank() || project.equals( adaptor.getProject() )) {
+            return adaptor;
+        }
+
+        AzureAdaptor tenant = tenants.get( project );
+        if( tenant != null ) {
+            return tenant;
+        }
+        if( !adaptor.getProjects().contains( project )) {
+            throw new UnknownProjectException( adaptor.getOrganization(), project );
+        }
+
+        return tenants.computeIfAbsent( project, this::build );
+    }
+
+    // Injected like the AzureAdaptor bean, then bound to the project before its caches are built.
+    private AzureAdaptor build( String project ) {
+        LOGGER.info( "Building Azure DevOps adaptor for {}/{}", adaptor.getOrganization(), project );
+
+        AzureAdaptor tenant = new AzureAdaptor();
+        beanFactory.autowireBean( tenant );
+        tenant.organization = adaptor.getOrganization();
+        tenant.project = project;
+        tenant.tenantScoped = true;
+
+        return (AzureAdaptor) beanFactory.initializeBean( tenant, "azureAdaptor@" + project );
+    }
+}
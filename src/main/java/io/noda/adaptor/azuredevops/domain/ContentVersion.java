@@ -0,0 +1,9 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import java.time.Instant;
+
+/**
+ * A result together with the version it is served under: an entity tag and the time that content first appeared.
+ */
+public record ContentVersion<T>( T value, String tag, Instant lastModified ) {
+}
@@ -0,0 +1,40 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the results that carry no sync version of their own (metadata catalogs and query results).
+ *
+ * The latest result of each key is kept with its version; a result equal to it keeps that version, anything
+ * else gets a new one.  Cached catalogs are returned as the same instance until refreshed, so the equality
+ * check is usually an identity check.  Tags are prefixed with the process start, so a restarted bridge
+ * never reuses a tag for other content.
+ */
+@Component
+public class ContentVersions {
+
+    private final String epoch = Long.toString( System.currentTimeMillis(), 36 );
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Cache<String, ContentVersion<?>> latest = Caffeine.newBuilder()
+            .maximumSize( 1000 )
+            .expireAfterAccess( Duration.ofHours(2) )
+            .build();
+
+    @SuppressWarnings("unchecked")
+    public <T> ContentVersion<T> track( String key, T value ) {
+        return (ContentVersion<T>) latest.asMap().compute( key, (k, previous) -> {
+            if( previous != null && ( previous.value() == value || previous.value().equals( value ))) {
+                return previous;
+            }
+            return new ContentVersion<>( value, epoch + "-" + sequence.incrementAndGet(), Instant.now() );
+        });
+    }
+}
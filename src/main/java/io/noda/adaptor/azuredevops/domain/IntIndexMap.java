@@ -0,0 +1,49 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from a work item id to its position in a dataset, without boxing either.
+ */
+final class IntIndexMap {
+
+    static final int MISSING = -1;
+
+    private final int[] keys;
+
+    private final int[] values;
+
+    private final int mask;
+
+    IntIndexMap( int expectedSize ) {
+        int capacity = Integer.highestOneBit( Math.max( 4, expectedSize ) * 2 - 1 ) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill( values, MISSING );
+    }
+
+    void put( int key, int value ) {
+        int slot = slot( key );
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    int get( int key ) {
+        return values[slot( key )];
+    }
+
+    // Slot holding the key, or the free slot where it belongs.  The table is kept at most half full.
+    private int slot( int key ) {
+        int slot = mix( key ) & mask;
+        while( values[slot] != MISSING && keys[slot] != key ) {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix( int key ) {
+        int h = key * 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+}
@@ -0,0 +1,100 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.MapNode;
+import io.noda.adaptor.common.model.MapPatchPlan;
+import io.noda.adaptor.common.model.NodeLayout;
+import io.noda.adaptor.common.model.NodeLink;
+import io.noda.adaptor.common.model.NodePosition;
+import io.noda.adaptor.common.model.WorkItem;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes the node and link operations that turn a rendered map layout into the current one, so a
+ * headset refresh only touches what changed.
+ *
+ * A node is updated when anything it is drawn from changed: title, type, state, remote link or position.
+ * Links take their look from the child's state and iteration; when those change the link is removed and
+ * added again.  Without a previous layout the plan is a full one: every node to create.
+ */
+public final class MapPatchPlanner {
+
+    private MapPatchPlanner() {
+    }
+
+    public static MapPatchPlan plan( NodeLayout previous, String previousTag, NodeLayout current, String currentTag ) {
+        MapPatchPlan plan = new MapPatchPlan();
+        plan.setVersion( current.getVersion() );
+        plan.setTag( currentTag );
+        plan.setSinceTag( previous == null ? null : previousTag );
+        plan.setFull( previous == null );
+
+        Map<String, MapNode> before = previous == null ? Map.of() : nodes( previous );
+        Map<String, MapNode> after = nodes( current );
+
+        after.forEach((id, node) -> {
+            MapNode rendered = before.get( id );
+            if( rendered == null ) {
+                plan.getCreate().add( node );
+            } else if( !drawnAlike( rendered, node )) {
+                plan.getUpdate().add( node );
+            }
+        });
+        before.keySet().stream().filter(id -> !after.containsKey( id )).forEach(plan.getDelete()::add);
+
+        Set<NodeLink> linksBefore = previous == null ? Set.of() : new LinkedHashSet<>( previous.getLinks() );
+        Set<NodeLink> linksAfter = new LinkedHashSet<>( current.getLinks() );
+        for (NodeLink link : linksAfter) {
+            if( !linksBefore.contains( link )) {
+                plan.getAddLinks().add( link );
+            } else if( !linkedAlike( before.get( link.getToId() ), after.get( link.getToId() ))) {
+                plan.getRemoveLinks().add( link );
+                plan.getAddLinks().add( link );
+            }
+        }
+        linksBefore.stream().filter(link -> !linksAfter.contains( link )).forEach(plan.getRemoveLinks()::add);
+
+        return plan;
+    }
+
+    // Placed nodes by work item id; items without a position (outside every tree) are not drawn.
+    private static Map<String, MapNode> nodes( NodeLayout layout ) {
+        Map<String, WorkItem> items = new HashMap<>();
+        layout.getWorkItems().forEach(item -> items.put( item.getId(), item ));
+
+        Map<String, MapNode> nodes = new LinkedHashMap<>();
+        for (NodePosition position : layout.getNodes()) {
+            WorkItem item = items.get( position.getId() );
+            if( item != null ) {
+                nodes.put( position.getId(), new MapNode( item, position.getX(), position.getY(), position.getZ() ));
+            }
+        }
+
+        return nodes;
+    }
+
+    private static boolean drawnAlike( MapNode rendered, MapNode node ) {
+        WorkItem before = rendered.getItem();
+        WorkItem after = node.getItem();
+
+        return rendered.getX() == node.getX() && rendered.getY() == node.getY() && rendered.getZ() == node.getZ()
+                && Objects.equals( before.getName(), after.getName() )
+                && before.getType() == after.getType()
+                && before.getState() == after.getState()
+                && Objects.equals( before.getRemoteRef(), after.getRemoteRef() );
+    }
+
+    private static boolean linkedAlike( MapNode rendered, MapNode node ) {
+        if( rendered == null || node == null ) {
+            return rendered == node;
+        }
+
+        return rendered.getItem().getState() == node.getItem().getState()
+                && Objects.equals( rendered.getItem().getIteration(), node.getItem().getIteration() );
+    }
+}
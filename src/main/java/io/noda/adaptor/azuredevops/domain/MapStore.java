@@ -0,0 +1,141 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Versioned store of the Noda node maps posted back by the headsets.
+ *
+ * A map is streamed to a spool file while its SHA-256 is computed, then kept once under its hash, so
+ * identical maps share a file.  Every distinct map saved for a team & sprint gets the next version;
+ * saving the same content as the latest version returns that version.
+ */
+@Component
+public class MapStore {
+
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public static class MapTooLargeException extends RuntimeException {
+
+        public MapTooLargeException( DataSize maximum ) {
+            super( "Map exceeds the maximum size of " + maximum );
+        }
+    }
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${azure-devops.maps.directory:./data/maps}")
+    Path directory;
+
+    @Value("${azure-devops.maps.maximum-size:64MB}")
+    DataSize maximumSize;
+
+    @Autowired
+    MapVersionRepository repository;
+
+    @PostConstruct
+    void createDirectory() throws IOException {
+        Files.createDirectories( directory );
+    }
+
+    public MapVersion save( String team, String sprint, InputStreamSource body ) {
+        try {
+            Path spool = Files.createTempFile( directory, "upload-", ".spool" );
+            try {
+                MessageDigest digest = sha256();
+                long size = spool( body, digest, spool );
+                String hash = HexFormat.of().formatHex( digest.digest() );
+
+                Path file = contentFile( hash );
+                if( Files.notExists( file )) {
+                    Files.move( spool, file, StandardCopyOption.ATOMIC_MOVE );
+                }
+
+                return addVersion( team, sprint, hash, size );
+            } finally {
+                Files.deleteIfExists( spool );
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public Optional<MapVersion> find( String team, String sprint, Integer version ) {
+        return version == null
+                ? repository.findFirstByTeamAndSprintOrderByVersionDesc( team, sprint )
+                : repository.findByTeamAndSprintAndVersion( team, sprint, version );
+    }
+
+    public List<MapVersion> versions( String team, String sprint ) {
+        return repository.findByTeamAndSprintOrderByVersionDesc( team, sprint );
+    }
+
+    public Path contentFile( String hash ) {
+        return directory.resolve( hash + ".json" );
+    }
+
+    // Version numbers are taken one save at a time.
+    private synchronized MapVersion addVersion( String team, String sprint, String hash, long size ) {
+        Optional<MapVersion> latest = repository.findFirstByTeamAndSprintOrderByVersionDesc( team, sprint );
+        if( latest.isPresent() && latest.get().getHash().equals( hash )) {
+            return latest.get();
+        }
+
+        MapVersion version = new MapVersion();
+        version.setTeam( team );
+        version.setSprint( sprint );
+        version.setVersion( latest.map(MapVersion::getVersion).orElse( 0 ) + 1 );
+        version.setHash( hash );
+        version.setSize( size );
+        version.setSavedAt( Instant.now() );
+        LOGGER.debug( "Map {}/{} version {} saved, {} bytes", team, sprint, version.getVersion(), size );
+
+        return repository.save( version );
+    }
+
+    private long spool( InputStreamSource body, MessageDigest digest, Path spool ) throws IOException {
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream( body.getInputStream(), digest ); OutputStream out = Files.newOutputStream( spool )) {
+            for (int read = in.read( buffer ); read >= 0; read = in.read( buffer )) {
+                size += read;
+                if( size > maximumSize.toBytes() ) {
+                    throw new MapTooLargeException( maximumSize );
+                }
+                out.write( buffer, 0, read );
+            }
+        }
+
+        return size;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException( e );
+        }
+    }
+}
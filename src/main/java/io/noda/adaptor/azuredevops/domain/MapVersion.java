@@ -0,0 +1,52 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A saved version of a team/sprint's Noda node map.  The map content itself is a file named after its hash.
+ */
+@Entity
+@Table(name = "map_version", uniqueConstraints = @UniqueConstraint(columnNames = { "team", "sprint", "version" }))
+@Getter
+@Setter
+@NoArgsConstructor
+public class MapVersion {
+
+    @Id
+    @GeneratedValue
+    @Schema(hidden = true)
+    private Long id;
+
+    @Column(nullable = false)
+    @Schema(description = "Team the map belongs to", example = "Noda Team")
+    private String team;
+
+    @Column(nullable = false)
+    @Schema(description = "Sprint the map belongs to", example = "Iteration 1")
+    private String sprint;
+
+    @Schema(description = "Map version for the team & sprint, starting at 1", example = "3")
+    private int version;
+
+    @Column(length = 64, nullable = false)
+    @Schema(description = "SHA-256 of the map content, also its ETag", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String hash;
+
+    @Schema(description = "Map size in bytes", example = "48213")
+    private long size;
+
+    @Column(nullable = false)
+    @Schema(description = "When the version was saved")
+    private Instant savedAt;
+}
@@ -0,0 +1,15 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MapVersionRepository extends JpaRepository<MapVersion, Long> {
+
+    Optional<MapVersion> findFirstByTeamAndSprintOrderByVersionDesc( String team, String sprint );
+
+    Optional<MapVersion> findByTeamAndSprintAndVersion( String team, String sprint, int version );
+
+    List<MapVersion> findByTeamAndSprintOrderByVersionDesc( String team, String sprint );
+}
@@ -0,0 +1,109 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Builds and tracks the caches holding the Azure DevOps metadata (projects, teams, sprints & queries).
+ *
+ * Each cache is configured under azure-devops.cache.{name}: entries are refreshed in the background once
+ * "refresh-after" has passed, while the stale value keeps being served, and are dropped after
+ * "expire-after".  Hit/miss statistics are published to the actuator metrics.  A cache named "{name}@{project}"
+ * belongs to an adaptor of another project and is configured like {name}.
+ */
+@Component
+public class MetadataCaches {
+
+    private static final Duration DEFAULT_EXPIRE_AFTER = Duration.ofHours(24);
+    private static final Duration DEFAULT_REFRESH_AFTER = Duration.ofMinutes(30);
+    private static final long DEFAULT_MAXIMUM_SIZE = 100;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    Environment environment;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<String, LoadingCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Runnable>> invalidationListeners = new ConcurrentHashMap<>();
+
+    public <K, V> LoadingCache<K, V> build( String name, CacheLoader<K, V> loader ) {
+        int scope = name.indexOf( '@' );
+        String prefix = "azure-devops.cache." + ( scope < 0 ? name : name.substring( 0, scope )) + ".";
+
+        LoadingCache<K, V> cache = Caffeine.newBuilder()
+                .expireAfterWrite( environment.getProperty( prefix + "expire-after", Duration.class, DEFAULT_EXPIRE_AFTER ))
+                .refreshAfterWrite( environment.getProperty( prefix + "refresh-after", Duration.class, DEFAULT_REFRESH_AFTER ))
+                .maximumSize( environment.getProperty( prefix + "maximum-size", Long.class, DEFAULT_MAXIMUM_SIZE ))
+                .recordStats()
+                .build( loader );
+
+        CaffeineCacheMetrics.monitor( meterRegistry, cache, name );
+        caches.put( name, cache );
+
+        return cache;
+    }
+
+    /**
+     * Runs the listener whenever the cache is invalidated, for state derived from it (e.g. the query index).
+     */
+    public void onInvalidate( String name, Runnable listener ) {
+        invalidationListeners.computeIfAbsent( name, key -> new CopyOnWriteArrayList<>() ).add( listener );
+    }
+
+    public Set<String> getNames() {
+        return caches.keySet();
+    }
+
+    public boolean invalidate( String name ) {
+        LoadingCache<?, ?> cache = caches.get( name );
+        if( cache == null ) {
+            return false;
+        }
+
+        LOGGER.info( "Invalidating metadata cache {}", name );
+        cache.invalidateAll();
+        invalidationListeners.getOrDefault( name, List.of() ).forEach(Runnable::run);
+        return true;
+    }
+
+    public void invalidateAll() {
+        caches.keySet().forEach(this::invalidate);
+    }
+
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            CacheStats stats = cache.stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put( "size", cache.estimatedSize() );
+            entry.put( "hits", stats.hitCount() );
+            entry.put( "misses", stats.missCount() );
+            entry.put( "loadFailures", stats.loadFailureCount() );
+            entry.put( "evictions", stats.evictionCount() );
+            statistics.put( name, entry );
+        });
+
+        return statistics;
+    }
+}
@@ -0,0 +1,173 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.noda.adaptor.common.model.NodeLayout;
+import io.noda.adaptor.common.model.NodeLink;
+import io.noda.adaptor.common.model.NodePosition;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkTree;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Places the work item nodes on the map, as the headset page did from the padded work trees:
+ *
+ *   - the trees are laid out in rows, one per level, each row holding the nodes of that level of every tree
+ *     in order, place holders included;
+ *   - a node without children takes its slot in the row, (position - row width / 2) * x spacing;
+ *   - a node with children is centred above them, halfway between the leftmost and rightmost child;
+ *   - the rows go down by the y spacing per level and all sit at -z spacing.
+ *
+ * As leaves are padded down to the depth of their tree, they are spread over the bottom row and the
+ * parents centred above them.  Only the row offsets depend on the other trees, so once those are counted
+ * each tree is placed on its own, in parallel for larger datasets.  Place holders are not part of the
+ * layout.  Layouts are cached per dataset version and spacing.
+ */
+@Component
+public class NodeLayoutEngine {
+
+    public record Spacing( double x, double y, double z ) {
+
+        public static final Spacing DEFAULT = new Spacing( 0.300, 0.420, 0.300 );
+    }
+
+    // Below this many tree nodes the trees are placed on the calling thread.
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    @Value("${azure-devops.layout.cache-size:200}")
+    long cacheSize;
+
+    private Cache<String, NodeLayout> layouts;
+
+    @PostConstruct
+    void buildCache() {
+        layouts = Caffeine.newBuilder().maximumSize( cacheSize ).build();
+    }
+
+    /**
+     * @param datasetKey identifies the dataset (sprint or query) the results version belongs to
+     */
+    public ContentVersion<NodeLayout> layout( String datasetKey, ContentVersion<WorkItemResults> results, Spacing spacing ) {
+        NodeLayout layout = layouts.get( cacheKey( datasetKey, results.tag(), spacing ), key -> layout( results.value(), spacing ));
+
+        return new ContentVersion<>( layout, results.tag(), results.lastModified() );
+    }
+
+    /**
+     * A layout computed before for the dataset, while it is still cached; used as the rendered state to
+     * compute patch plans from.
+     */
+    public Optional<NodeLayout> cached( String datasetKey, String tag, Spacing spacing ) {
+        return Optional.ofNullable( layouts.getIfPresent( cacheKey( datasetKey, tag, spacing )));
+    }
+
+    private static String cacheKey( String datasetKey, String tag, Spacing spacing ) {
+        return datasetKey + "@" + tag + "@" + spacing;
+    }
+
+    public static NodeLayout layout( WorkItemResults results, Spacing spacing ) {
+        List<WorkTree> trees = results.getWorkPaths();
+
+        List<List<List<WorkTree>>> treeRows = new ArrayList<>( trees.size() );
+        int nodeCount = 0;
+        for (WorkTree tree : trees) {
+            List<List<WorkTree>> rows = rows( tree );
+            treeRows.add( rows );
+            nodeCount += rows.stream().mapToInt(List::size).sum();
+        }
+
+        // Row widths over every tree, and where each tree starts in each row.
+        int depth = treeRows.stream().mapToInt(List::size).max().orElse( 0 );
+        int[] rowWidths = new int[depth];
+        int[][] rowOffsets = new int[trees.size()][];
+        for (int t = 0; t < trees.size(); t++) {
+            List<List<WorkTree>> rows = treeRows.get( t );
+            rowOffsets[t] = new int[rows.size()];
+            for (int level = 0; level < rows.size(); level++) {
+                rowOffsets[t][level] = rowWidths[level];
+                rowWidths[level] += rows.get( level ).size();
+            }
+        }
+
+        IntStream treeIndexes = IntStream.range( 0, trees.size() );
+        if( nodeCount >= PARALLEL_THRESHOLD ) {
+            treeIndexes = treeIndexes.parallel();
+        }
+        List<List<NodePosition>> placed = treeIndexes
+                .mapToObj(t -> place( treeRows.get( t ), rowOffsets[t], rowWidths, spacing ))
+                .toList();
+
+        NodeLayout layout = new NodeLayout();
+        layout.setVersion( results.getVersion() );
+        layout.setWorkItems( new ArrayList<>( results.getWorkItems() ));
+        placed.forEach(layout.getNodes()::addAll);
+        results.getWorkItems().forEach(item -> {
+            if( item.getChildren() != null ) {
+                item.getChildren().forEach(childId -> layout.getLinks().add( new NodeLink( item.getId(), childId )));
+            }
+        });
+
+        return layout;
+    }
+
+    // The nodes of a tree level by level, left to right.
+    private static List<List<WorkTree>> rows( WorkTree root ) {
+        List<List<WorkTree>> rows = new ArrayList<>();
+        List<WorkTree> row = List.of( root );
+        while( !row.isEmpty() ) {
+            rows.add( row );
+            List<WorkTree> next = new ArrayList<>();
+            for (WorkTree node : row) {
+                if( node.getChildren() != null ) {
+                    next.addAll( node.getChildren() );
+                }
+            }
+            row = next;
+        }
+
+        return rows;
+    }
+
+    // Bottom row first, so the children of a node are placed before it.
+    private static List<NodePosition> place( List<List<WorkTree>> rows, int[] rowOffsets, int[] rowWidths, Spacing spacing ) {
+        Map<WorkTree, Double> xPositions = new IdentityHashMap<>();
+        List<NodePosition> positions = new ArrayList<>();
+        for (int level = rows.size() - 1; level >= 0; level--) {
+            List<WorkTree> row = rows.get( level );
+            for (int n = 0; n < row.size(); n++) {
+                WorkTree node = row.get( n );
+                double x = ( rowOffsets[level] + n - rowWidths[level] / 2.0 ) * spacing.x();
+                if( node.getChildren() != null && !node.getChildren().isEmpty() ) {
+                    double min = Double.MAX_VALUE;
+                    double max = -Double.MAX_VALUE;
+                    for (WorkTree child : node.getChildren()) {
+                        double childX = xPositions.get( child );
+                        min = Math.min( min, childX );
+                        max = Math.max( max, childX );
+                    }
+                    x = min + ( max - min ) / 2;
+                }
+                xPositions.put( node, x );
+
+                if( !isPlaceHolder( node )) {
+                    positions.add( new NodePosition( node.getExternalId(), x, level * -spacing.y(), -spacing.z() ));
+                }
+            }
+        }
+
+        return positions;
+    }
+
+    private static boolean isPlaceHolder( WorkTree node ) {
+        return node.getExternalId().startsWith( "P" );
+    }
+}
@@ -0,0 +1,159 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.PortfolioScope;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads many sprints and queries, across teams & projects, as one dataset for a single map.
+ *
+ * Every scope is loaded through the adaptor of its project, so it is answered from the same snapshots and
+ * caches as a single team request.  The scopes run in parallel on a pool of azure-devops.portfolio.parallelism
+ * threads shared by all portfolio requests, which is the global budget on top of the per-organization limits
+ * of the AzureCallScheduler.
+ */
+@Component
+public class PortfolioAggregator {
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public static class InvalidPortfolioException extends RuntimeException {
+
+        public InvalidPortfolioException( String message ) {
+            super( message );
+        }
+    }
+
+    private static final String ALL_TEAMS = "all";
+
+    @Autowired
+    AzureTenants tenants;
+
+    @Autowired
+    AdaptorMetrics metrics;
+
+    @Value("${azure-devops.portfolio.parallelism:8}")
+    int parallelism;
+
+    @Value("${azure-devops.portfolio.maximum-scopes:50}")
+    int maximumScopes;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool( Math.max( 1, parallelism ), new CustomizableThreadFactory("portfolio-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public WorkItemResults load( List<PortfolioScope> scopes ) {
+        validate( scopes );
+
+        List<WorkItemResults> loaded = metrics.time( "fan-out", AdaptorMetrics.PORTFOLIO, ALL_TEAMS, () -> {
+            List<CompletableFuture<WorkItemResults>> futures = scopes.stream()
+                    .map(scope -> CompletableFuture.supplyAsync(() -> loadScope( scope ), executor))
+                    .toList();
+            try {
+                return futures.stream().map(CompletableFuture::join).toList();
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel( false ));
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        });
+
+        WorkItemResults results = metrics.time( "merge", AdaptorMetrics.PORTFOLIO, ALL_TEAMS, () -> merge( loaded ));
+        metrics.results( AdaptorMetrics.PORTFOLIO, ALL_TEAMS, results.getWorkItems().size() );
+
+        return results;
+    }
+
+    private WorkItemResults loadScope( PortfolioScope scope ) {
+        AzureAdaptor adaptor = tenants.get( scope.getProject() );
+
+        return scope.getSprint() != null
+                ? adaptor.getWorkItemResults( scope.getTeam(), scope.getSprint() )
+                : adaptor.getQueryWorkItemResults( scope.getQueryId(), scope.getTeam() );
+    }
+
+    private void validate( List<PortfolioScope> scopes ) {
+        if( scopes == null || scopes.isEmpty() ) {
+            throw new InvalidPortfolioException( "A portfolio needs at least one scope" );
+        }
+        if( scopes.size() > maximumScopes ) {
+            throw new InvalidPortfolioException( "A portfolio is limited to " + maximumScopes + " scopes" );
+        }
+        for (PortfolioScope scope : scopes) {
+            if( scope.getTeam() == null || ( scope.getSprint() == null ) == ( scope.getQueryId() == null )) {
+                throw new InvalidPortfolioException( "Each scope needs a team and either a sprint or a query: " + scope );
+            }
+        }
+    }
+
+    /**
+     * Merges the results into one dataset.  An item found in several scopes is kept once, in the order it was
+     * first met, with the children every scope linked to it.  An item whose parent only came with another scope
+     * is added to that parent's children, so a parent shared by several teams carries all of their work once
+     * the trees are built over the merged items.
+     */
+    static WorkItemResults merge( List<WorkItemResults> loaded ) {
+        Map<String, WorkItem> merged = new LinkedHashMap<>();
+        for (WorkItemResults results : loaded) {
+            for (WorkItem item : results.getWorkItems()) {
+                merged.merge( item.getId(), item, PortfolioAggregator::mergeChildren );
+            }
+        }
+
+        Map<String, List<String>> unlinked = new LinkedHashMap<>();
+        merged.values().forEach(item -> {
+            WorkItem parent = item.getParent() != null ? merged.get( item.getParent() ) : null;
+            if( parent != null && ( parent.getChildren() == null || !parent.getChildren().contains( item.getId() ))) {
+                unlinked.computeIfAbsent( parent.getId(), key -> new ArrayList<>() ).add( item.getId() );
+            }
+        });
+        unlinked.forEach((parentId, children) -> merged.put( parentId,
+                mergeChildren( merged.get( parentId ), WorkItem.builder().children( children ).build() )));
+
+        WorkItemResults results = new WorkItemResults();
+        results.setWorkItems( new ArrayList<>( merged.values() ));
+        results.setWorkPaths( WorkTreeBuilder.build( merged ));
+
+        return results;
+    }
+
+    private static WorkItem mergeChildren( WorkItem first, WorkItem other ) {
+        if( other.getChildren() == null || other.getChildren().isEmpty() ) {
+            return first;
+        }
+
+        Set<String> children = new LinkedHashSet<>();
+        if( first.getChildren() != null ) {
+            children.addAll( first.getChildren() );
+        }
+        int known = children.size();
+        children.addAll( other.getChildren() );
+
+        return children.size() == known ? first : first.toBuilder().children( new ArrayList<>( children )).build();
+    }
+}
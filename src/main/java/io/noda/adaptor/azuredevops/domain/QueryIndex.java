@@ -0,0 +1,68 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.QueryItem;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the saved queries, keyed by UUID and by path (both case-insensitive).
+ * The index is replaced as a whole whenever the query catalog is (re)loaded, and single queries fetched
+ * outside of the catalog are added as they are found.
+ */
+public class QueryIndex {
+
+    private volatile Map<String, QueryItem> byUuid = new ConcurrentHashMap<>();
+
+    private volatile Map<String, QueryItem> byPath = new ConcurrentHashMap<>();
+
+    public void replaceAll( Collection<QueryItem> queryItems ) {
+        Map<String, QueryItem> uuids = new ConcurrentHashMap<>();
+        Map<String, QueryItem> paths = new ConcurrentHashMap<>();
+        queryItems.forEach(item -> index( item, uuids, paths ));
+
+        byUuid = uuids;
+        byPath = paths;
+    }
+
+    public void put( QueryItem queryItem ) {
+        index( queryItem, byUuid, byPath );
+    }
+
+    public Optional<QueryItem> findByUuid( String uuid ) {
+        return uuid == null ? Optional.empty() : Optional.ofNullable( byUuid.get( normalize( uuid )));
+    }
+
+    public Optional<QueryItem> findByPath( String path ) {
+        return path == null ? Optional.empty() : Optional.ofNullable( byPath.get( normalize( path )));
+    }
+
+    public Optional<QueryItem> find( String uuidOrPath ) {
+        return findByUuid( uuidOrPath ).or(() -> findByPath( uuidOrPath ));
+    }
+
+    public void clear() {
+        byUuid = new ConcurrentHashMap<>();
+        byPath = new ConcurrentHashMap<>();
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    private void index( QueryItem item, Map<String, QueryItem> uuids, Map<String, QueryItem> paths ) {
+        if( item.getUuid() != null ) {
+            uuids.put( normalize( item.getUuid() ), item );
+        }
+        if( item.getPath() != null ) {
+            paths.put( normalize( item.getPath() ), item );
+        }
+    }
+
+    private String normalize( String key ) {
+        return key.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,54 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: the first caller for a key runs the call, callers arriving while it
+ * is in flight wait for and share its result, or its failure.  Nothing is kept once the call completes.
+ */
+public class SingleFlight {
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute( Object key, Supplier<T> call ) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent( key, flight );
+        if( existing != null ) {
+            return (T) join( existing );
+        }
+
+        try {
+            T result = call.get();
+            flight.complete( result );
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally( e );
+            throw e;
+        } finally {
+            inFlight.remove( key, flight );
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object join( CompletableFuture<Object> flight ) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if( e.getCause() instanceof RuntimeException cause ) {
+                throw cause;
+            }
+            if( e.getCause() instanceof Error cause ) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local store of the last good Azure DevOps results (sprint items, query results and metadata catalogs),
+ * so the bridge starts warm and keeps serving while Azure is unavailable.
+ *
+ * Writes are serialised, compressed and stored on a single background thread, in the order they were
+ * requested; a write whose content is identical to what is stored for the key is skipped.
+ */
+@Component
+public class SnapshotStore {
+
+    public record Stored<T>( T value, Instant storedAt, Instant watermark ) {
+    }
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    StoredSnapshotRepository repository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${azure-devops.store.enabled:true}")
+    boolean enabled;
+
+    private ExecutorService writer;
+
+    private final Map<String, String> storedHashes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        writer = Executors.newSingleThreadExecutor( new CustomizableThreadFactory("snapshot-store-"));
+    }
+
+    // Let the pending writes finish, they are the freshest data there is.
+    @PreDestroy
+    void stop() throws InterruptedException {
+        writer.shutdown();
+        if( !writer.awaitTermination( 10, TimeUnit.SECONDS )) {
+            LOGGER.warn( "Snapshot store writes still pending at shutdown were dropped" );
+            writer.shutdownNow();
+        }
+    }
+
+    public void save( String key, Object value ) {
+        save( key, value, null );
+    }
+
+    public void save( String key, Object value, Instant watermark ) {
+        if( !enabled ) {
+            return;
+        }
+
+        Instant storedAt = Instant.now();
+        writer.execute(() -> {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes( value );
+                String hash = sha256( json );
+                if( hash.equals( storedHashes.get( key ))) {
+                    return;
+                }
+
+                StoredSnapshot snapshot = new StoredSnapshot();
+                snapshot.setKey( key );
+                snapshot.setPayload( gzip( json ));
+                snapshot.setPayloadHash( hash );
+                snapshot.setStoredAt( storedAt );
+                snapshot.setWatermark( watermark );
+                repository.save( snapshot );
+                storedHashes.put( key, hash );
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn( "Unable to store snapshot {}: {}", key, e.getMessage() );
+            }
+        });
+    }
+
+    public <T> Optional<Stored<T>> load( String key, TypeReference<T> type ) {
+        if( !enabled ) {
+            return Optional.empty();
+        }
+
+        try {
+            return repository.findById( key ).map(snapshot -> read( snapshot, type ));
+        } catch (RuntimeException e) {
+            LOGGER.warn( "Unable to read snapshot {}: {}", key, e.getMessage() );
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keys stored under a prefix, e.g. every team's sprint catalog.
+     */
+    public List<String> keys( String prefix ) {
+        if( !enabled ) {
+            return List.of();
+        }
+
+        try {
+            return repository.findKeysStartingWith( prefix.replace( "\\", "\\\\" ).replace( "%", "\\%" ).replace( "_", "\\_" ));
+        } catch (RuntimeException e) {
+            LOGGER.warn( "Unable to list snapshots {}: {}", prefix, e.getMessage() );
+            return List.of();
+        }
+    }
+
+    private <T> Stored<T> read( StoredSnapshot snapshot, TypeReference<T> type ) {
+        try (InputStream in = new GZIPInputStream( new ByteArrayInputStream( snapshot.getPayload() ))) {
+            storedHashes.putIfAbsent( snapshot.getKey(), snapshot.getPayloadHash() );
+            return new Stored<>( objectMapper.readValue( in, type ), snapshot.getStoredAt(), snapshot.getWatermark() );
+        } catch (IOException e) {
+            throw new IllegalStateException( "Stored snapshot " + snapshot.getKey() + " is unreadable", e );
+        }
+    }
+
+    private static byte[] gzip( byte[] data ) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( data.length / 4 + 64 );
+        try (OutputStream out = new GZIPOutputStream( buffer )) {
+            out.write( data );
+        }
+        return buffer.toByteArray();
+    }
+
+    static String sha256( byte[] data ) {
+        try {
+            return HexFormat.of().formatHex( MessageDigest.getInstance("SHA-256").digest( data ));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException( e );
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemDelta;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Last synchronised state of a sprint (team & iteration) dataset.
+ *
+ * Every patch that changes the work items produces a new version.  The item and root ids touched by the
+ * most recent versions are kept, so a client holding an older version can be sent only what changed.
+ *
+ * Versions count from the start again whenever a snapshot is built anew (after eviction, a restart or a
+ * restore), so clients hold a tag instead: the version prefixed with a lineage drawn once per snapshot.
+ */
+public class SprintSnapshot {
+
+    private record ChangeSet( long version, Set<String> workItems, Set<String> workPaths ) {
+    }
+
+    private final int historyLimit;
+
+    private final String lineage = Long.toHexString( ThreadLocalRandom.current().nextLong() );
+
+    private final Deque<ChangeSet> history = new ArrayDeque<>();
+
+    private Map<String, WorkItem> workItems = new LinkedHashMap<>();
+
+    private WorkItemGraph graph = WorkItemGraph.of( List.of() );
+
+    private Map<String, WorkTree> workPaths = new LinkedHashMap<>();
+
+    private long version;
+
+    private Instant watermark;
+
+    private Instant lastModified = Instant.EPOCH;
+
+    private boolean restored;
+
+    public SprintSnapshot( int historyLimit ) {
+        this.historyLimit = Math.max( 1, historyLimit );
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized Instant getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * True while the snapshot only holds stored data that has not been synchronised with Azure yet.
+     */
+    public synchronized boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Seeds an empty snapshot with stored, already linked work items.  The stored watermark is kept, so the
+     * next synchronisation only hydrates what changed since the data was stored.
+     */
+    public synchronized void restore( List<WorkItem> stored, Instant storedWatermark ) {
+        int[] ids = stored.stream().mapToInt(item -> Integer.parseInt( item.getId() )).toArray();
+        patch( ids, stored, false, storedWatermark );
+        lastModified = storedWatermark != null ? storedWatermark : Instant.now();
+        restored = true;
+    }
+
+    /**
+     * @return the work item as of the last patch, or null when it is not part of the sprint
+     */
+    public synchronized WorkItem getItem( String id ) {
+        return workItems.get( id );
+    }
+
+    /**
+     * Ids to hydrate for a patch: the ones new to the snapshot plus the ones Azure reports as changed.
+     */
+    public synchronized int[] getIdsToFetch( int[] currentIds, int[] changedIds ) {
+        Set<Integer> changed = new HashSet<>();
+        Arrays.stream( changedIds ).forEach(changed::add);
+
+        return Arrays.stream( currentIds )
+                .filter(id -> changed.contains( id ) || !workItems.containsKey( Integer.toString( id )))
+                .toArray();
+    }
+
+    /**
+     * Applies a synchronisation result: fetched items replace their previous state and items no longer in
+     * currentIds are removed.  Only the root trees containing touched items are rebuilt.
+     *
+     * @return true when the work items changed and a new version was produced
+     */
+    public synchronized boolean patch( int[] currentIds, List<WorkItem> fetched, boolean linkByParent, Instant syncedAt ) {
+        restored = false;
+        Map<String, WorkItem> updates = new HashMap<>();
+        fetched.forEach(item -> updates.put( item.getId(), item ));
+
+        Map<String, WorkItem> patched = new LinkedHashMap<>();
+        for (int id : currentIds) {
+            String key = Integer.toString( id );
+            WorkItem item = updates.getOrDefault( key, workItems.get( key ));
+            if( item != null ) {
+                patched.put( key, item );
+            }
+        }
+        Map<String, WorkItem> next = linkByParent ? WorkTreeBuilder.linkChildrenByParent( patched ) : patched;
+
+        Set<String> touchedItems = new LinkedHashSet<>();
+        next.forEach((key, item) -> {
+            if( !item.equals( workItems.get( key ))) {
+                touchedItems.add( key );
+            }
+        });
+        workItems.keySet().stream().filter(key -> !next.containsKey( key )).forEach(touchedItems::add);
+
+        watermark = syncedAt;
+        if( touchedItems.isEmpty() ) {
+            return false;
+        }
+
+        WorkItemGraph nextGraph = WorkItemGraph.of( next.values() );
+        Set<String> affectedRoots = new HashSet<>();
+        touchedItems.forEach(key -> {
+            affectedRoots.add( findRoot( key, graph ));
+            affectedRoots.add( findRoot( key, nextGraph ));
+        });
+        // A touched item inside a parent/child cycle has no definite root, every tree is rebuilt then.
+        boolean rebuildAll = affectedRoots.contains( null );
+
+        Map<String, WorkTree> nextPaths = new LinkedHashMap<>();
+        Set<String> touchedPaths = new LinkedHashSet<>();
+        for (int root : nextGraph.roots()) {
+            String rootId = nextGraph.idOf( root );
+            WorkTree previous = workPaths.get( rootId );
+            if( previous != null && !rebuildAll && !affectedRoots.contains( rootId )) {
+                nextPaths.put( rootId, previous );
+                continue;
+            }
+
+            WorkTree rebuilt = WorkTreeBuilder.buildRoot( nextGraph, root );
+            nextPaths.put( rootId, rebuilt );
+            if( !rebuilt.equals( previous )) {
+                touchedPaths.add( rootId );
+            }
+        }
+        workPaths.keySet().stream().filter(rootId -> !nextPaths.containsKey( rootId )).forEach(touchedPaths::add);
+
+        workItems = next;
+        graph = nextGraph;
+        workPaths = nextPaths;
+        version++;
+        lastModified = Instant.now();
+
+        history.addLast( new ChangeSet( version, touchedItems, touchedPaths ));
+        while( history.size() > historyLimit ) {
+            history.removeFirst();
+        }
+
+        return true;
+    }
+
+    public synchronized WorkItemResults toResults() {
+        WorkItemResults results = new WorkItemResults();
+        results.setWorkItems( new ArrayList<>( workItems.values() ));
+        results.setWorkPaths( new ArrayList<>( workPaths.values() ));
+        results.setVersion( version );
+
+        return results;
+    }
+
+    /**
+     * The results with their version tag, see getTag.
+     */
+    public synchronized ContentVersion<WorkItemResults> toVersionedResults() {
+        return new ContentVersion<>( toResults(), getTag(), lastModified );
+    }
+
+    /**
+     * @return the lineage of the snapshot and its version, as "lineage-version"
+     */
+    public synchronized String getTag() {
+        return lineage + "-" + version;
+    }
+
+    /**
+     * Changes between the version of the given tag and the current one.  When the tag is from another
+     * lineage, unknown or older than the kept history, the full dataset is returned and flagged as such.
+     */
+    public synchronized WorkItemDelta changesSince( String sinceTag ) {
+        long sinceVersion = versionOf( sinceTag );
+        WorkItemDelta delta = new WorkItemDelta();
+        delta.setVersion( version );
+        delta.setTag( getTag() );
+        delta.setSinceVersion( sinceVersion );
+        delta.setSinceTag( sinceTag );
+
+        if( sinceVersion == version ) {
+            return delta;
+        }
+
+        if( sinceVersion <= 0 || sinceVersion > version || history.isEmpty() || history.peekFirst().version() > sinceVersion + 1 ) {
+            delta.setFull( true );
+            delta.setSinceVersion( 0 );
+            delta.setSinceTag( null );
+            delta.setChanged( new ArrayList<>( workItems.values() ));
+            delta.setWorkPaths( new ArrayList<>( workPaths.values() ));
+            return delta;
+        }
+
+        Set<String> items = new LinkedHashSet<>();
+        Set<String> paths = new LinkedHashSet<>();
+        history.stream().filter(changeSet -> changeSet.version() > sinceVersion).forEach(changeSet -> {
+            items.addAll( changeSet.workItems() );
+            paths.addAll( changeSet.workPaths() );
+        });
+
+        items.forEach(key -> {
+            WorkItem item = workItems.get( key );
+            if( item != null ) {
+                delta.getChanged().add( item );
+            } else {
+                delta.getRemoved().add( key );
+            }
+        });
+        paths.forEach(rootId -> {
+            WorkTree tree = workPaths.get( rootId );
+            if( tree != null ) {
+                delta.getWorkPaths().add( tree );
+            } else {
+                delta.getRemovedPaths().add( rootId );
+            }
+        });
+
+        return delta;
+    }
+
+    // Version of a tag from this lineage, or 0 (unknown) for any other tag; a weak ETag is accepted as well.
+    private long versionOf( String tag ) {
+        if( tag != null && tag.startsWith( "W/" )) {
+            tag = tag.substring( 2 );
+        }
+        if( tag != null && tag.length() > 1 && tag.startsWith( "\"" ) && tag.endsWith( "\"" )) {
+            tag = tag.substring( 1, tag.length() - 1 );
+        }
+        if( tag == null || !tag.startsWith( lineage + "-" )) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong( tag.substring( lineage.length() + 1 ));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Root above an item (the item itself when it is not in the graph), or null when the parent links loop back before reaching one.
+    private static String findRoot( String id, WorkItemGraph graph ) {
+        int position = graph.indexOf( id );
+        if( position == WorkItemGraph.NONE ) {
+            return id;
+        }
+
+        int root = graph.rootOf( position );
+        return root == WorkItemGraph.NONE ? null : graph.idOf( root );
+    }
+}
@@ -0,0 +1,40 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Last good Azure DevOps result kept in the local store, as gzipped JSON.
+ */
+@Entity
+@Table(name = "stored_snapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredSnapshot {
+
+    @Id
+    @Column(name = "snapshot_key", length = 512)
+    private String key;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(length = 64, nullable = false)
+    private String payloadHash;
+
+    @Column(nullable = false)
+    private Instant storedAt;
+
+    // Sync watermark of the stored data, when it has one.
+    private Instant watermark;
+}
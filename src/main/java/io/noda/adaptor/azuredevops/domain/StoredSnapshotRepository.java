@@ -0,0 +1,14 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StoredSnapshotRepository extends JpaRepository<StoredSnapshot, String> {
+
+    // Keys only, the payloads are not read; the prefix has its LIKE wildcards escaped with '\'.
+    @Query("select s.key from StoredSnapshot s where s.key like concat(:prefix, '%') escape '\\'")
+    List<String> findKeysStartingWith( @Param("prefix") String prefix );
+}
@@ -0,0 +1,47 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemDelta;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the changes between two computed work item result sets.
+ */
+public final class WorkItemDiff {
+
+    private WorkItemDiff() {
+    }
+
+    public static WorkItemDelta between( WorkItemResults previous, WorkItemResults current ) {
+        WorkItemDelta delta = new WorkItemDelta();
+
+        Map<String, WorkItem> previousItems = new HashMap<>();
+        previous.getWorkItems().forEach(item -> previousItems.put( item.getId(), item ));
+        current.getWorkItems().forEach(item -> {
+            if( !item.equals( previousItems.remove( item.getId() ))) {
+                delta.getChanged().add( item );
+            }
+        });
+        delta.getRemoved().addAll( previousItems.keySet() );
+
+        Map<String, WorkTree> previousPaths = new HashMap<>();
+        previous.getWorkPaths().forEach(tree -> previousPaths.put( tree.getExternalId(), tree ));
+        current.getWorkPaths().forEach(tree -> {
+            if( !tree.equals( previousPaths.remove( tree.getExternalId() ))) {
+                delta.getWorkPaths().add( tree );
+            }
+        });
+        delta.getRemovedPaths().addAll( previousPaths.keySet() );
+
+        return delta;
+    }
+
+    public static boolean isEmpty( WorkItemDelta delta ) {
+        return delta.getChanged().isEmpty() && delta.getRemoved().isEmpty()
+                && delta.getWorkPaths().isEmpty() && delta.getRemovedPaths().isEmpty();
+    }
+}
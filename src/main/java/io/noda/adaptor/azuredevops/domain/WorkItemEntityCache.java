@@ -0,0 +1,107 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.noda.adaptor.common.model.WorkItem;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Process wide cache of the mapped work items, shared by every sprint and query, keyed by work item id and
+ * projection and holding the System.Rev the item was mapped at.
+ *
+ * An entry checked against Azure within "revalidate-after" is served as is; an older one is served once
+ * Azure reports the same revision for the id, which costs a light id-only read instead of hydrating the
+ * item again.  The cache is bounded by an estimate of the memory the items hold ("maximum-weight") and
+ * evicts with Caffeine's W-TinyLFU policy, so items shared by many views stay while one-off reads go.
+ */
+@Component
+public class WorkItemEntityCache {
+
+    public record Entry( int revision, WorkItem item, long checkedAt ) {
+    }
+
+    private record Key( int id, WorkItemProjection projection ) {
+    }
+
+    @Value("${azure-devops.entities.maximum-weight:64MB}")
+    DataSize maximumWeight;
+
+    @Value("${azure-devops.entities.revalidate-after:30s}")
+    Duration revalidateAfter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Cache<Key, Entry> entries;
+
+    @PostConstruct
+    void buildCache() {
+        entries = Caffeine.newBuilder()
+                .maximumWeight( maximumWeight.toBytes() )
+                .weigher((Key key, Entry entry) -> weight( entry.item() ))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor( meterRegistry, entries, "workItems" );
+    }
+
+    /**
+     * @return the cached item, or null when it is not cached for the projection
+     */
+    public Entry get( int id, WorkItemProjection projection ) {
+        return entries.getIfPresent( new Key( id, projection ));
+    }
+
+    public boolean isFresh( Entry entry ) {
+        return System.nanoTime() - entry.checkedAt() < revalidateAfter.toNanos();
+    }
+
+    /**
+     * @return the cached item when Azure reports the revision it was mapped at, which makes it fresh again;
+     *         null when it changed since
+     */
+    public WorkItem atRevision( int id, WorkItemProjection projection, int revision ) {
+        Key key = new Key( id, projection );
+        Entry entry = entries.getIfPresent( key );
+        if( entry == null || entry.revision() != revision ) {
+            return null;
+        }
+
+        entries.put( key, new Entry( revision, entry.item(), System.nanoTime() ));
+        return entry.item();
+    }
+
+    public void put( int id, WorkItemProjection projection, int revision, WorkItem item ) {
+        entries.put( new Key( id, projection ), new Entry( revision, item, System.nanoTime() ));
+    }
+
+    public long estimatedSize() {
+        return entries.estimatedSize();
+    }
+
+    // Rough heap size of a mapped item: object headers and references, two bytes per character.
+    static int weight( WorkItem item ) {
+        int weight = 160 + 2 * ( length( item.getId() ) + length( item.getParent() ) + length( item.getName() )
+                + length( item.getRemoteRef() ) + length( item.getIteration() ));
+        List<String> children = item.getChildren();
+        if( children != null ) {
+            for (String child : children) {
+                weight += 48 + 2 * length( child );
+            }
+        }
+
+        return weight;
+    }
+
+    private static int length( String value ) {
+        return value == null ? 0 : value.length();
+    }
+}
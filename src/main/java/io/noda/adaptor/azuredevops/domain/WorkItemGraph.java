@@ -0,0 +1,224 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Parent/child structure of a work item dataset, held in int arrays indexed by the item position.
+ *
+ * Every item listing another item of the set as a child claims it; when several items list the same child
+ * the last one wins.  The claimed children of each item are kept as one adjacency range (compressed sparse
+ * rows), in the order the item lists them, so the trees are walked without any map lookup or boxing.  The
+ * String ids of the model are only read while the graph is built.
+ */
+public final class WorkItemGraph {
+
+    public static final int NONE = -1;
+
+    private final WorkItem[] items;
+
+    private final IntIndexMap index;
+
+    private final int[] parent;
+
+    private final int[] childStart;
+
+    private final int[] childList;
+
+    private WorkItemGraph( WorkItem[] items, IntIndexMap index, int[] parent, int[] childStart, int[] childList ) {
+        this.items = items;
+        this.index = index;
+        this.parent = parent;
+        this.childStart = childStart;
+        this.childList = childList;
+    }
+
+    public static WorkItemGraph of( Collection<WorkItem> workItems ) {
+        WorkItem[] items = workItems.toArray(new WorkItem[0]);
+        int size = items.length;
+
+        IntIndexMap index = new IntIndexMap( size );
+        int listed = 0;
+        for (int i = 0; i < size; i++) {
+            int id = parseId( items[i].getId() );
+            if( id == NONE ) {
+                throw new IllegalArgumentException( "Work item id is not numeric: " + items[i].getId() );
+            }
+            index.put( id, i );
+            listed += items[i].getChildren() != null ? items[i].getChildren().size() : 0;
+        }
+
+        // First pass: resolve the listed children to positions; the last item listing a child claims it.
+        int[] parent = new int[size];
+        Arrays.fill( parent, NONE );
+        int[] listStart = new int[size + 1];
+        int[] listedChild = new int[listed];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            listStart[i] = position;
+            if( items[i].getChildren() == null ) {
+                continue;
+            }
+            for (String childId : items[i].getChildren()) {
+                int child = lookup( index, childId );
+                listedChild[position++] = child;
+                if( child != NONE ) {
+                    parent[child] = i;
+                }
+            }
+        }
+        listStart[size] = position;
+
+        // Second pass: keep each claimed child once, under its claiming parent.
+        int[] childStart = new int[size + 1];
+        int[] childList = new int[listed];
+        boolean[] linked = new boolean[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            childStart[i] = length;
+            for (int k = listStart[i]; k < listStart[i + 1]; k++) {
+                int child = listedChild[k];
+                if( child != NONE && parent[child] == i && !linked[child] ) {
+                    linked[child] = true;
+                    childList[length++] = child;
+                }
+            }
+        }
+        childStart[size] = length;
+
+        return new WorkItemGraph( items, index, parent, childStart, Arrays.copyOf( childList, length ));
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public WorkItem item( int position ) {
+        return items[position];
+    }
+
+    public String idOf( int position ) {
+        return items[position].getId();
+    }
+
+    /**
+     * @return the position of the item, or NONE when it is not part of the set
+     */
+    public int indexOf( String id ) {
+        return lookup( index, id );
+    }
+
+    public int parentOf( int position ) {
+        return parent[position];
+    }
+
+    public int childCount( int position ) {
+        return childStart[position + 1] - childStart[position];
+    }
+
+    public int child( int position, int n ) {
+        return childList[childStart[position] + n];
+    }
+
+    /**
+     * Root positions in item order: the items no other item claims, followed by one item for each group of
+     * items that can only be reached through a cycle.
+     */
+    public int[] roots() {
+        int size = items.length;
+        int[] roots = new int[size];
+        int count = 0;
+
+        boolean[] reached = new boolean[size];
+        int[] pending = new int[size];
+        for (int i = 0; i < size; i++) {
+            if( parent[i] == NONE ) {
+                roots[count++] = i;
+                markReachable( i, reached, pending );
+            }
+        }
+
+        int[] walked = new int[size];
+        for (int i = 0; i < size; i++) {
+            if( !reached[i] ) {
+                int cycleRoot = findCycleEntry( i, walked );
+                roots[count++] = cycleRoot;
+                markReachable( cycleRoot, reached, pending );
+            }
+        }
+
+        return Arrays.copyOf( roots, count );
+    }
+
+    /**
+     * @return the root above the item, or NONE when its parent links loop back before reaching one
+     */
+    public int rootOf( int position ) {
+        int current = position;
+        for (int steps = 0; parent[current] != NONE; steps++) {
+            if( steps == items.length ) {
+                return NONE;
+            }
+            current = parent[current];
+        }
+
+        return current;
+    }
+
+    private void markReachable( int root, boolean[] reached, int[] pending ) {
+        int top = 0;
+        reached[root] = true;
+        pending[top++] = root;
+        while( top > 0 ) {
+            int node = pending[--top];
+            for (int k = childStart[node]; k < childStart[node + 1]; k++) {
+                int child = childList[k];
+                if( !reached[child] ) {
+                    reached[child] = true;
+                    pending[top++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks up from an item no root reaches until an item repeats; that item is part of the cycle.  The
+     * walk is stamped with the start position, so no set is needed and the walked items are not revisited:
+     * they are all reached once the cycle root is promoted.
+     */
+    private int findCycleEntry( int position, int[] walked ) {
+        int stamp = position + 1;
+        int current = position;
+        while( walked[current] != stamp ) {
+            walked[current] = stamp;
+            current = parent[current];
+        }
+
+        return current;
+    }
+
+    private static int lookup( IntIndexMap index, String id ) {
+        int parsed = parseId( id );
+        return parsed == NONE ? NONE : index.get( parsed );
+    }
+
+    // Azure ids are positive ints; anything else is not an id of the set.
+    static int parseId( String id ) {
+        if( id == null || id.isEmpty() || id.length() > 10 ) {
+            return NONE;
+        }
+
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt( i );
+            if( c < '0' || c > '9' ) {
+                return NONE;
+            }
+            value = value * 10 + ( c - '0' );
+        }
+
+        return value > Integer.MAX_VALUE ? NONE : (int) value;
+    }
+}
@@ -0,0 +1,111 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Splits work item id arrays into batches Azure DevOps will accept and fetches them concurrently.
+ * Results are merged back in the order of the requested ids.
+ */
+@Component
+public class WorkItemHydrator {
+
+    // Azure DevOps rejects work item batch reads above 200 ids.
+    public static final int MAX_BATCH_SIZE = 200;
+
+    @Value("${azure-devops.hydration.batch-size:200}")
+    int batchSize;
+
+    @Value("${azure-devops.hydration.parallelism:8}")
+    int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        batchSize = Math.max( 1, Math.min( batchSize, MAX_BATCH_SIZE ));
+        executor = Executors.newFixedThreadPool( Math.max( 1, parallelism ), new CustomizableThreadFactory("azure-hydration-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public <T> List<T> hydrate( int[] ids, Function<int[], List<T>> batchFetch ) {
+        List<int[]> batches = partition( ids );
+        if( batches.isEmpty() ) {
+            return new ArrayList<>();
+        }
+        if( batches.size() == 1 ) {
+            return batchFetch.apply( batches.get(0) );
+        }
+
+        List<CompletableFuture<List<T>>> pending = new ArrayList<>( batches.size() );
+        batches.forEach(batch -> pending.add( CompletableFuture.supplyAsync(() -> batchFetch.apply( batch ), executor )));
+
+        List<T> results = new ArrayList<>( ids.length );
+        for (CompletableFuture<List<T>> batch : pending) {
+            results.addAll( join( batch ));
+        }
+
+        return results;
+    }
+
+    /**
+     * Hydrates like hydrate(ids, batchFetch) but hands every batch to the consumer as soon as it and the
+     * batches before it are in, so callers can pass results on without holding the whole set.
+     */
+    public <T> void hydrate( int[] ids, Function<int[], List<T>> batchFetch, Consumer<List<T>> onBatch ) {
+        List<int[]> batches = partition( ids );
+        if( batches.size() == 1 ) {
+            onBatch.accept( batchFetch.apply( batches.get(0) ));
+            return;
+        }
+
+        List<CompletableFuture<List<T>>> pending = new ArrayList<>( batches.size() );
+        batches.forEach(batch -> pending.add( CompletableFuture.supplyAsync(() -> batchFetch.apply( batch ), executor )));
+
+        try {
+            for (CompletableFuture<List<T>> batch : pending) {
+                onBatch.accept( join( batch ));
+            }
+        } catch (RuntimeException e) {
+            pending.forEach(batch -> batch.cancel( false ));
+            throw e;
+        }
+    }
+
+    public List<int[]> partition( int[] ids ) {
+        List<int[]> batches = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += batchSize) {
+            batches.add( Arrays.copyOfRange( ids, from, Math.min( ids.length, from + batchSize )));
+        }
+
+        return batches;
+    }
+
+    private <T> T join( CompletableFuture<T> future ) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if( e.getCause() instanceof RuntimeException cause ) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
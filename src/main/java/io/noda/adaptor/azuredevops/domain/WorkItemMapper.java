@@ -0,0 +1,175 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.azd.workitemtracking.types.WorkItemRelations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps the Azure DevOps work items onto the Noda work item model.
+ */
+public class WorkItemMapper {
+
+    // Marks a missing parent or an unparseable relation url.
+    static final int NO_ID = -1;
+
+    private final String organization;
+
+    public WorkItemMapper( String organization ) {
+        this.organization = organization;
+    }
+
+    /**
+     * @param relations true when the item was fetched with its relations expanded, the hierarchy is then read
+     *                  from the relations rather than from the System.Parent field
+     */
+    public WorkItem toWorkItem( org.azd.workitemtracking.types.WorkItem item, boolean relations ) {
+        Hierarchy hierarchy = relations ? readHierarchy( item.getRelations() ) : null;
+
+        return WorkItem.builder()
+                .id( Integer.toString( item.getId() ))
+                .parent( relations ? hierarchy.parentId() : convertParentField( item.getFields().getSystemParent() ))
+                .name( item.getFields().getSystemTitle() )
+                .type( convertWorkItemType( item.getFields().getSystemWorkItemType()) )
+                .remoteRef( "https://dev.azure.com/" + this.organization + "/" +  item.getFields().getSystemTeamProject() + "/_workitems/edit/" + item.getId() + "/")
+                .state( convertWorkItemState(  item.getFields().getSystemState()) )
+                .children( relations ? hierarchy.childIds() : new ArrayList<>() )
+                .iteration( convertIterationPath( item.getFields().getSystemIterationPath() ))
+                .build();
+    }
+
+    WorkItemType convertWorkItemType( String azureType ) {
+        return switch (azureType) {
+            case "Feature" -> WorkItemType.FEATURE;
+            case "User Story" -> WorkItemType.STORY;
+            case "Issue" -> WorkItemType.ISSUE;
+            case "Task" -> WorkItemType.TASK;
+            case "Bug" -> WorkItemType.BUG;
+            default -> WorkItemType.EPIC;
+        };
+    }
+
+    WorkItemState convertWorkItemState( String azureType ) {
+        return switch (azureType) {
+            case "Active" -> WorkItemState.IN_PROGRESS;
+            case "Resolved", "Closed" -> WorkItemState.COMPLETED;
+            case "Removed" -> WorkItemState.REMOVED;
+            default -> WorkItemState.BACKLOG;
+        };
+    }
+
+    String convertParentField( Integer parentId ) {
+        return parentId != null && parentId > 0 ? Integer.toString( parentId ) : null;
+    }
+
+    String convertIterationPath(  String path ) {
+        String iterationName = "";
+
+        if( path.contains("\\")) {
+            iterationName = path.split("\\\\")[1];
+        }
+        return iterationName;
+    }
+
+    /**
+     * Reads the parent and child ids from the relations in a single walk.  Every other relation type
+     * (related items, commits, attachments...) is skipped on its name, before its url is looked at.
+     */
+    static Hierarchy readHierarchy( List<WorkItemRelations> relations ) {
+        Hierarchy hierarchy = new Hierarchy();
+        if( relations == null ) {
+            return hierarchy;
+        }
+
+        for (WorkItemRelations relation : relations) {
+            String name = relation.getAttributes() != null ? relation.getAttributes().getName() : null;
+            boolean child = "Child".equalsIgnoreCase( name );
+            if( !child && !"Parent".equalsIgnoreCase( name )) {
+                continue;
+            }
+
+            int id = parseTrailingId( relation.getUrl() );
+            if( id == NO_ID ) {
+                continue;
+            }
+            if( child ) {
+                hierarchy.addChild( id );
+            } else {
+                hierarchy.parent = id;
+            }
+        }
+
+        return hierarchy;
+    }
+
+    /**
+     * The last run of digits in a work item url (".../_apis/wit/workItems/20124"), parsed in place.
+     *
+     * @return the id, or NO_ID when the url holds no digits or the number does not fit an int
+     */
+    static int parseTrailingId( String uri ) {
+        if( uri == null ) {
+            return NO_ID;
+        }
+
+        int end = uri.length() - 1;
+        while( end >= 0 && !isDigit( uri.charAt( end ))) {
+            end--;
+        }
+        int start = end;
+        while( start >= 0 && isDigit( uri.charAt( start ))) {
+            start--;
+        }
+        if( end < 0 || end - start > 10 ) {
+            return NO_ID;
+        }
+
+        long id = 0;
+        for (int i = start + 1; i <= end; i++) {
+            id = id * 10 + ( uri.charAt( i ) - '0' );
+        }
+
+        return id > Integer.MAX_VALUE ? NO_ID : (int) id;
+    }
+
+    private static boolean isDigit( char c ) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parent and child ids of a work item, kept as ints until the model is built.
+     */
+    static final class Hierarchy {
+
+        private static final int[] NO_CHILDREN = new int[0];
+
+        private int parent = NO_ID;
+
+        private int[] children = NO_CHILDREN;
+
+        private int childCount;
+
+        private void addChild( int id ) {
+            if( childCount == children.length ) {
+                children = Arrays.copyOf( children, Math.max( 4, childCount * 2 ));
+            }
+            children[childCount++] = id;
+        }
+
+        String parentId() {
+            return parent == NO_ID ? null : Integer.toString( parent );
+        }
+
+        List<String> childIds() {
+            List<String> ids = new ArrayList<>( childCount );
+            for (int i = 0; i < childCount; i++) {
+                ids.add( Integer.toString( children[i] ));
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Describes what is requested from Azure DevOps when hydrating work items.
+ *
+ * Field projections only pull the listed fields; the hierarchy is then linked through the System.Parent
+ * field.  Azure DevOps does not allow a field list together with an expand option, so a projection that
+ * asks for relations falls back to expanding relations with every field.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class WorkItemProjection {
+
+    // Fields the WorkItem model is mapped from, always part of a field projection.
+    public static final String[] MODEL_FIELDS = {
+            "System.Id",
+            "System.Title",
+            "System.WorkItemType",
+            "System.TeamProject",
+            "System.State",
+            "System.IterationPath",
+            "System.Parent"
+    };
+
+    private final String[] fields;
+
+    private final boolean relations;
+
+    private WorkItemProjection( String[] fields, boolean relations ) {
+        this.fields = fields;
+        this.relations = relations;
+    }
+
+    public static WorkItemProjection of( String[] fields, boolean relations ) {
+        Set<String> merged = new LinkedHashSet<>( Arrays.asList( MODEL_FIELDS ));
+        if( fields != null ) {
+            Arrays.stream( fields ).map(String::trim).filter(field -> !field.isEmpty()).forEach(merged::add);
+        }
+
+        return new WorkItemProjection( merged.toArray(new String[0]), relations );
+    }
+
+    public static WorkItemProjection modelFields() {
+        return of( null, false );
+    }
+}
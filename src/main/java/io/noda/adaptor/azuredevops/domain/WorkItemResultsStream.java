@@ -0,0 +1,22 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.util.List;
+
+/**
+ * Receives work item results piece by piece, as they become available, instead of as one WorkItemResults.
+ */
+public interface WorkItemResultsStream {
+
+    /**
+     * Work items, in the order they were requested.  An item can be received again later (with its children
+     * once every batch is in); the last one received replaces the earlier ones.
+     */
+    void items( List<WorkItem> workItems );
+
+    void paths( List<WorkTree> workPaths );
+
+    void complete( long version );
+}
@@ -0,0 +1,207 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the padded work item hierarchy (the "workPaths") from a set of linked work items.
+ *
+ * Trees are built iteratively over a WorkItemGraph, so deep backlogs cannot overflow the stack and the
+ * hierarchy is walked on int positions; the tree nodes reuse the String ids of the items.  Every item has a
+ * single claiming parent in the graph, which keeps cyclic parent/child links (possible through Azure data
+ * errors) from looping; an item caught in a cycle without any root above it is promoted to a root itself.
+ */
+public final class WorkTreeBuilder {
+
+    private WorkTreeBuilder() {
+    }
+
+    public static List<WorkTree> build( Map<String, WorkItem> workItemMap ) {
+        WorkItemGraph graph = WorkItemGraph.of( workItemMap.values() );
+
+        List<WorkTree> rootNodeTree = new ArrayList<>();
+        for (int root : graph.roots()) {
+            rootNodeTree.add( buildRoot( graph, root ));
+        }
+
+        return rootNodeTree;
+    }
+
+    /**
+     * Builds and pads the tree below a root.  The depth is tracked while the tree is built and the
+     * shallow leaves are padded afterwards, without walking the tree again; the padding nodes themselves
+     * are only built when the tree is read.
+     */
+    public static WorkTree buildRoot( WorkItemGraph graph, int root ) {
+        WorkTree rootNode = newNode( graph.idOf( root ), null, 0 );
+
+        List<WorkTree> leaves = new ArrayList<>();
+        int maxDepth = 0;
+
+        // Each item is listed under its single parent, so only the root can be met twice (closing a cycle).
+        WorkTree[] pendingNodes = new WorkTree[16];
+        int[] pendingPositions = new int[16];
+        int top = 0;
+        pendingNodes[top] = rootNode;
+        pendingPositions[top++] = root;
+        while( top > 0 ) {
+            WorkTree node = pendingNodes[--top];
+            int position = pendingPositions[top];
+            maxDepth = Math.max( maxDepth, node.getLevel() );
+
+            int childCount = graph.childCount( position );
+            if( top + childCount > pendingNodes.length ) {
+                int capacity = Math.max( pendingNodes.length * 2, top + childCount );
+                pendingNodes = Arrays.copyOf( pendingNodes, capacity );
+                pendingPositions = Arrays.copyOf( pendingPositions, capacity );
+            }
+            for (int n = 0; n < childCount; n++) {
+                int child = graph.child( position, n );
+                if( child != root ) {
+                    WorkTree childNode = newNode( graph.idOf( child ), node.getExternalId(), node.getLevel() + 1 );
+                    node.getChildren().add( childNode );
+                    pendingNodes[top] = childNode;
+                    pendingPositions[top++] = child;
+                }
+            }
+
+            if( node.getChildren().isEmpty() ) {
+                leaves.add( node );
+            }
+        }
+
+        for (WorkTree leaf : leaves) {
+            padNodeDepth( leaf, maxDepth );
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Rebuilds the child lists from the parent links within the set, for items fetched without relations.
+     * Items are never modified; the ones whose children differ are replaced by copies.
+     */
+    public static Map<String, WorkItem> linkChildrenByParent( Map<String, WorkItem> workItemMap ) {
+        WorkItem[] items = workItemMap.values().toArray(new WorkItem[0]);
+        int size = items.length;
+
+        IntIndexMap index = new IntIndexMap( size );
+        for (int i = 0; i < size; i++) {
+            index.put( WorkItemGraph.parseId( items[i].getId() ), i );
+        }
+
+        // Children of each item as one adjacency range, in item order.
+        int[] parent = new int[size];
+        int[] childStart = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            int id = WorkItemGraph.parseId( items[i].getParent() );
+            parent[i] = id == WorkItemGraph.NONE ? WorkItemGraph.NONE : index.get( id );
+            if( parent[i] != WorkItemGraph.NONE ) {
+                childStart[parent[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childStart[i + 1] += childStart[i];
+        }
+        int[] childList = new int[childStart[size]];
+        int[] filled = Arrays.copyOf( childStart, size );
+        for (int i = 0; i < size; i++) {
+            if( parent[i] != WorkItemGraph.NONE ) {
+                childList[filled[parent[i]]++] = i;
+            }
+        }
+
+        Map<String, WorkItem> linked = new LinkedHashMap<>();
+        int position = 0;
+        for (Map.Entry<String, WorkItem> entry : workItemMap.entrySet()) {
+            WorkItem item = entry.getValue();
+            int from = childStart[position];
+            int to = childStart[position + 1];
+            if( hasChildren( item, items, childList, from, to )) {
+                linked.put( entry.getKey(), item );
+            } else {
+                List<String> children = new ArrayList<>( to - from );
+                for (int k = from; k < to; k++) {
+                    children.add( items[childList[k]].getId() );
+                }
+                linked.put( entry.getKey(), item.toBuilder().children( children ).build() );
+            }
+            position++;
+        }
+
+        return linked;
+    }
+
+    private static boolean hasChildren( WorkItem item, WorkItem[] items, int[] childList, int from, int to ) {
+        List<String> children = item.getChildren();
+        if( children == null || children.size() != to - from ) {
+            return false;
+        }
+        for (int k = from; k < to; k++) {
+            if( !children.get( k - from ).equals( items[childList[k]].getId() )) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Extends a shallow leaf with place holder nodes down to the depth of its tree.
+    private static void padNodeDepth( WorkTree leaf, int targetDepth ) {
+        if( leaf.getLevel() < targetDepth ) {
+            leaf.setChildren( new PaddingList( leaf.getExternalId(), leaf.getLevel() + 1, targetDepth ));
+        }
+    }
+
+    /**
+     * The single place holder child of a padded node.  The node is only built when the list is read, and
+     * not kept, so a tree holds no padding nodes between reads; the whole chain below a leaf costs one list.
+     */
+    private static final class PaddingList extends AbstractList<WorkTree> {
+
+        private final String id;
+
+        private final int level;
+
+        private final int targetDepth;
+
+        PaddingList( String id, int level, int targetDepth ) {
+            this.id = id;
+            this.level = level;
+            this.targetDepth = targetDepth;
+        }
+
+        @Override
+        public WorkTree get( int index ) {
+            Objects.checkIndex( index, 1 );
+            WorkTree pad = newNode( "P" + id + "-L" + level, id, level );
+            if( level < targetDepth ) {
+                pad.setChildren( new PaddingList( id, level + 1, targetDepth ));
+            }
+            return pad;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+    }
+
+    private static WorkTree newNode( String externalId, String parentId, int level ) {
+        WorkTree node = new WorkTree();
+        node.setExternalId( externalId );
+        node.setParentId( parentId );
+        node.setLevel( level );
+        node.setChildren( new ArrayList<>() );
+
+        return node;
+    }
+}
@@ -6,12 +6,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.LocalDate;
 import java.util.Date;
 
 @Data
 @Builder
+@Jacksonized
 @ToString
 @EqualsAndHashCode
 public class Iteration {
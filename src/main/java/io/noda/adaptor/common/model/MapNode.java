@@ -0,0 +1,28 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapNode {
+
+    @Schema(description = "Work item shown by the node")
+    private WorkItem item;
+
+    @Schema(description = "Left/Right position, relative to the map origin", example = "-0.45")
+    private double x;
+
+    @Schema(description = "Up/Down position, one level below the other", example = "-0.84")
+    private double y;
+
+    @Schema(description = "In/Out position", example = "-0.3")
+    private double z;
+}
@@ -0,0 +1,45 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+public class MapPatchPlan {
+
+    @Schema(description = "Dataset version the plan brings the map to", example = "12")
+    private long version;
+
+    @Schema(description = "Rendered state tag of the plan, passed as 'since' on the next refresh", example = "12-1760700000000")
+    private String tag;
+
+    @Schema(description = "Rendered state tag the plan was computed from", example = "10-1760690000000")
+    private String sinceTag;
+
+    @Schema(description = "True when the rendered state is unknown and the whole map is sent as nodes to create")
+    private boolean full;
+
+    @Schema(description = "Nodes to create")
+    private List<MapNode> create = new ArrayList<>();
+
+    @Schema(description = "Nodes whose title, type, state, link or position changed")
+    private List<MapNode> update = new ArrayList<>();
+
+    @Schema(description = "Ids of the work items whose nodes are to be deleted", example = "[\"20124\"]")
+    private List<String> delete = new ArrayList<>();
+
+    @Schema(description = "Links to create; a link restyled for its child's new state is removed and added again")
+    private List<NodeLink> addLinks = new ArrayList<>();
+
+    @Schema(description = "Links to remove")
+    private List<NodeLink> removeLinks = new ArrayList<>();
+
+}
@@ -0,0 +1,30 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+public class NodeLayout {
+
+    @Schema(description = "Dataset version the layout was computed from", example = "12")
+    private long version;
+
+    @Schema(description = "List of work items")
+    private List<WorkItem> workItems = new ArrayList<>();
+
+    @Schema(description = "Map position of each work item node")
+    private List<NodePosition> nodes = new ArrayList<>();
+
+    @Schema(description = "Parent to child links between the work item nodes")
+    private List<NodeLink> links = new ArrayList<>();
+
+}
@@ -0,0 +1,22 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeLink {
+
+    @Schema(description = "Parent work item id", example = "20212")
+    private String fromId;
+
+    @Schema(description = "Child work item id", example = "20214")
+    private String toId;
+}
@@ -0,0 +1,29 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.jackson.Jacksonized;
+
+@Data
+@Builder
+@Jacksonized
+@ToString
+@EqualsAndHashCode
+public class PortfolioScope {
+
+    @Schema(description = "Project of the team, the configured project when empty", example = "Noda")
+    private String project;
+
+    @Schema(description = "Team Name", example = "Noda Team")
+    private String team;
+
+    @Schema(description = "Sprint of the team, when the scope is a sprint", example = "Sprint 1")
+    private String sprint;
+
+    @Schema(description = "Saved query UUID, when the scope is a query", example = "b8a5c4e1-3f0a-4c8e-9d4b-6f1e2a7c9d30")
+    private String queryId;
+
+}
@@ -5,11 +5,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
+@Jacksonized
 @ToString
 @EqualsAndHashCode
 public class WorkItem {
@@ -0,0 +1,45 @@
+package io.noda.adaptor.common.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+public class WorkItemDelta {
+
+    @Schema(description = "Dataset version the changes bring the client to", example = "12")
+    private long version;
+
+    @Schema(description = "Tag of the dataset version the changes bring the client to, to ask for the next changes with", example = "3f9a1c0d2b7e4a51-12")
+    private String tag;
+
+    @Schema(description = "Dataset version the changes were computed from", example = "10")
+    private long sinceVersion;
+
+    @Schema(description = "Tag the changes were computed from, empty when the full dataset is returned", example = "3f9a1c0d2b7e4a51-10")
+    private String sinceTag;
+
+    @Schema(description = "True when the requested tag is unknown or from an earlier lineage and the full dataset is returned instead")
+    private boolean full;
+
+    @Schema(description = "Work items created or updated since the requested version")
+    private List<WorkItem> changed = new ArrayList<>();
+
+    @Schema(description = "Ids of work items removed since the requested version", example = "[\"20124\"]")
+    private List<String> removed = new ArrayList<>();
+
+    @Schema(description = "Root work item trees created or rebuilt since the requested version")
+    private List<WorkTree> workPaths = new ArrayList<>();
+
+    @Schema(description = "Root ids of work item trees removed since the requested version", example = "[\"20124\"]")
+    private List<String> removedPaths = new ArrayList<>();
+
+}
@@ -21,4 +21,7 @@ public class WorkItemResults {
     @Schema(description = "List of work item heiarchery tree")
     private List<WorkTree> workPaths = new ArrayList<>();
 
+    @Schema(description = "Dataset version, increases whenever the work items change", example = "12")
+    private long version;
+
 }
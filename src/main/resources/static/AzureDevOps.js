@@ -140,6 +140,59 @@ async function populateMap() {
     statusSuccess("Azure DevOps Map built");
 }
 
+// Apply a server patch plan; nodes are placed at the positions laid out by the server, so no place holders
+// or row matrix are needed. A full plan replaces the whole map.
+async function applyPatchPlan(plan) {
+    eventMessage( "Placing nodes.")
+
+    if (plan.full) {
+        dataSet = { workItems: [], nodaMap: new Map(), workPaths: [] };
+    }
+
+    // Ensure we have the relationships between Noda UUIDs and the External Card Ids
+    await refreshNodaUUIDMap();
+
+    var placed = plan.create.concat(plan.update).map(node => {
+        dataSet.nodaMap.set(node.item.id, node.item);
+        var props = mapWorkItemToNodeProperties(node.item);
+        props.location = { x: node.x, y: node.y, z: node.z, relativeTo: "Origin" };
+        return crudNode(props, node.item.id);
+    });
+    var deleted = plan.delete.map(id => {
+        dataSet.nodaMap.delete(id);
+        return window.noda.deleteNode({ uuid: getUuidForId(id) });
+    });
+    await Promise.all(placed.concat(deleted));
+    dataSet.workItems = Array.from(dataSet.nodaMap.values());
+
+    await patchLinks(plan);
+    statusSuccess("Azure DevOps Map built");
+}
+
+async function patchLinks(plan) {
+    eventMessage( "Drawing node relationships.")
+    try {
+        const result = await window.noda.listLinks({});
+        var links = (result != null && result.links != null) ? result.links : [];
+
+        if (plan.full) {
+            // Purge all prior links as we cannot guarantee the
+            // source data to indicate removal of a link
+            links.forEach(l => deleteLink(l.uuid));
+        } else {
+            var removed = new Set(plan.removeLinks.map(link => getUuidForId(link.fromId) + ">" + getUuidForId(link.toId)));
+            links.filter(l => removed.has(l.fromUuid + ">" + l.toUuid)).forEach(l => deleteLink(l.uuid));
+        }
+
+        plan.addLinks
+            .filter(link => dataSet.nodaMap.has(link.toId))
+            .forEach(link => createLink(createWorkItemLinksProperties(link.fromId, link.toId)));
+
+    } catch (error) {
+        statusError("List Links error: " + error);
+    }
+}
+
 function drawNode(id, row, rowWidth, rowPosition, childRef) {
     //eventMessage( "Drawing node id : " + id)
 
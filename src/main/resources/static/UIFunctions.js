@@ -114,6 +114,7 @@ async function saveMap() {
 }
 
 async function loadMap() {
+    forgetRenderedMap();
     try {
         const result = await window.noda.loadJson({ jsonString: savedMapJsonText });
 
@@ -125,6 +126,7 @@ async function loadMap() {
 }
 
 async function clearMap() {
+    forgetRenderedMap();
     try {
         const result = await window.noda.clearMap();
 
@@ -352,9 +354,9 @@ async function getWorkItemBySelection() {
 
     var team = document.getElementById("team").value
     var sprint = document.getElementById("sprint").value
-    var url = "../api/agile/items/team/" + team + "/sprint/" + sprint;
+    var url = "../api/agile/plan/items/team/" + team + "/sprint/" + sprint;
 
-    getAzureWorkItemsDataAPI(url);
+    getAzureWorkItemsPlanAPI(url);
 }
 
 // Build the Noda map & relationships from the a Azure Flat Query that exposes
@@ -365,40 +367,121 @@ async function getWorkItemByQuery() {
 
     var queryUUID = document.getElementById("query").value
     var team = document.getElementById("team").value
-    var url = "../api/agile/query/" + queryUUID + "/team/" + team;
+    var url = "../api/agile/plan/query/" + queryUUID + "/team/" + team;
 
-    getAzureWorkItemsDataAPI(url);
+    getAzureWorkItemsPlanAPI(url);
+}
+
+// Follow the Org, Project, Team & Iteration selection live; the server pushes the changes
+// instead of the page re-fetching the whole dataset.
+async function followWorkItemBySelection() {
+
+    eventMessage( "Following Work Item Selection.")
+
+    var team = document.getElementById("team").value
+    var sprint = document.getElementById("sprint").value
+    var url = "../api/agile/live/items/team/" + team + "/sprint/" + sprint;
+
+    followAzureWorkItemsAPI(url);
+}
+
+// Follow the results of a Azure Flat Query live.
+async function followWorkItemByQuery() {
+
+    eventMessage( "Following Remote Query.")
+
+    var queryUUID = document.getElementById("query").value
+    var team = document.getElementById("team").value
+    var url = "../api/agile/live/query/" + queryUUID + "/team/" + team;
+
+    followAzureWorkItemsAPI(url);
 }
 
 //------------------------------------------------------------------------------------------------------------
 // Azure DevOps API Functions
 //
 
-// Load the Azure Data into the map
-async function getAzureWorkItemsDataAPI( url ) {
-    dataSet = {
-        workItems: [],
-        nodaMap: [],
-        workPaths: []
-    };
+// Dataset the map shows and the tag of the plan it was last brought to.
+var renderedMap = { url: null, tag: null };
 
-    const response = await fetch(url);
-    var data = await response.json();
-    if (response) {
+// The map on screen was cleared or replaced, so the next refresh asks for a full plan.
+function forgetRenderedMap() {
+    renderedMap = { url: null, tag: null };
+}
 
-        console.log( data );
+// Bring the map up to date with the server's patch plan: only the changed nodes and links are sent,
+// placed at the positions computed by the server. The first load of a dataset is a full plan.
+async function getAzureWorkItemsPlanAPI( url ) {
+    var params = new URLSearchParams({ x: xOffset, y: yOffset, z: zOffset });
+    if (renderedMap.url === url && renderedMap.tag != null) {
+        params.set("since", renderedMap.tag);
+    }
+
+    const response = await fetch(url + "?" + params);
+    if (response.ok) {
+        var plan = await response.json();
+
+        statusSuccess("Map Changes Loaded");
+
+        eventMessage( "Remote Query complete, " + plan.create.length + " new, " + plan.update.length + " changed, " + plan.delete.length + " removed.")
+        await applyPatchPlan(plan);
+        renderedMap = { url: url, tag: plan.tag };
+    } else {
+        statusError("Map Changes error: " + response.status);
+    }
+}
+
+// Place a work item dataset into the map
+function applyWorkItemsData( workItems, workPaths ) {
+    dataSet.workItems = workItems;
+    dataSet.workPaths = workPaths;
+
+    var nodaMap = new Map();
+    dataSet.workItems.forEach(item => nodaMap.set(item.id, item));
+    dataSet.nodaMap = nodaMap;
 
-        statusSuccess("Map Data Loaded");
+    populateMap();
+}
+
+// Server pushed updates; a 'snapshot' event carries the full dataset, 'delta' events only the changes.
+var liveSource = null;
+
+function followAzureWorkItemsAPI( url ) {
+    stopFollowing();
+
+    liveSource = new EventSource(url);
+
+    liveSource.addEventListener("snapshot", event => {
+        var data = JSON.parse(event.data);
+        statusSuccess("Live Map Data Loaded");
+        applyWorkItemsData(data.workItems, data.workPaths);
+    });
 
-        dataSet.workItems = data.workItems;
-        dataSet.workPaths = data.workPaths;
+    liveSource.addEventListener("delta", event => {
+        var delta = JSON.parse(event.data);
 
-        var nodaMap = new Map();
-        dataSet.workItems.forEach(item => nodaMap.set(item.id, item));
-        dataSet.nodaMap = nodaMap;
+        var items = new Map(dataSet.workItems.map(item => [item.id, item]));
+        delta.removed.forEach(id => items.delete(id));
+        delta.changed.forEach(item => items.set(item.id, item));
+
+        var paths = new Map(dataSet.workPaths.map(path => [path.externalId, path]));
+        delta.removedPaths.forEach(id => paths.delete(id));
+        delta.workPaths.forEach(path => paths.set(path.externalId, path));
+
+        eventMessage( "Live update to version " + delta.version + ", " + delta.changed.length + " changed, " + delta.removed.length + " removed.")
+        applyWorkItemsData(Array.from(items.values()), Array.from(paths.values()));
+    });
+
+    liveSource.addEventListener("failure", event => {
+        statusError("Live update error: " + event.data);
+    });
+}
 
-        eventMessage( "Remote Query complete.")
-        populateMap();
+function stopFollowing() {
+    if (liveSource != null) {
+        liveSource.close();
+        liveSource = null;
+        eventMessage( "Stopped following live updates.")
     }
 }
 
@@ -419,7 +502,11 @@ async function getIterationAPI() {
 // Post back the map data from Noda to the server
 async function postMapAPI( map ) {
 
-    var url = "../api/agile/map";
+    var params = new URLSearchParams({
+        team: document.getElementById("team").value,
+        sprint: document.getElementById("sprint").value
+    });
+    var url = "../api/agile/map?" + params;
 
     const response = await fetch(url, {
             method: "POST",
@@ -0,0 +1,46 @@
+package io.noda.adaptor.azuredevops.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonResultsWriterTests {
+
+	@Test
+	void writesOneRecordPerLine() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NdjsonResultsWriter writer = new NdjsonResultsWriter(new ObjectMapper(), out);
+
+		writer.items(List.of(WorkItem.builder().id("1").build(), WorkItem.builder().id("2").parent("1").build()));
+		WorkTree tree = new WorkTree();
+		tree.setExternalId("1");
+		writer.paths(List.of(tree));
+		writer.complete(3);
+
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(lines).hasSize(4);
+		assertThat(lines.get(0)).startsWith("{\"type\":\"item\",\"item\":{\"id\":\"1\"");
+		assertThat(lines.get(1)).contains("\"parent\":\"1\"");
+		assertThat(lines.get(2)).startsWith("{\"type\":\"path\",\"path\":{\"externalId\":\"1\"");
+		assertThat(lines.get(3)).isEqualTo("{\"type\":\"end\",\"version\":3}");
+	}
+
+	@Test
+	void endsWithFailureRecord() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NdjsonResultsWriter writer = new NdjsonResultsWriter(new ObjectMapper(), out);
+
+		writer.items(List.of(WorkItem.builder().id("1").build()));
+		writer.failure("Azure DevOps unavailable");
+
+		assertThat(out.toString(StandardCharsets.UTF_8).lines().toList())
+				.last().isEqualTo("{\"type\":\"failure\",\"message\":\"Azure DevOps unavailable\"}");
+	}
+}
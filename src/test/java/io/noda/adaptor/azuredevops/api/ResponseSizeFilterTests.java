@@ -0,0 +1,14 @@
+package io.noda.adaptor.azuredevops.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseSizeFilterTests {
+
+	@Test
+	void encodingIsNamedAfterTheMediaType() {
+		assertThat(ResponseSizeFilter.encoding("application/json;charset=UTF-8")).isEqualTo("json");
+		assertThat(ResponseSizeFilter.encoding("application/x-ndjson")).isEqualTo("ndjson");
+	}
+}
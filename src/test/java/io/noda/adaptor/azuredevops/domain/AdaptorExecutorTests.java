@@ -0,0 +1,99 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptorExecutorTests {
+
+	private final AdaptorExecutor executor = new AdaptorExecutor();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		executor.timeout = Duration.ofMillis(50);
+		executor.poolSize = 2;
+		executor.queueCapacity = 1;
+		executor.virtualThreads = false;
+		executor.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.stop();
+	}
+
+	@Test
+	void resultIsCompletedOffTheCallingThread() throws Exception {
+		Thread caller = Thread.currentThread();
+
+		assertThat(executor.supply(() -> Thread.currentThread() != caller).get()).isTrue();
+	}
+
+	@Test
+	void slowCallFailsWithTimeout() {
+		assertThatThrownBy(() -> executor.supply(() -> {
+			await(release);
+			return "late";
+		}).get())
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(AdaptorExecutor.AdaptorTimeoutException.class);
+	}
+
+	@Test
+	void failuresAreKept() {
+		assertThatThrownBy(() -> executor.supply(() -> {
+			throw new IllegalStateException("azure");
+		}).get())
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void callTimedOutInTheQueueIsSkipped() throws Exception {
+		executor.stop();
+		executor.queueCapacity = 2;
+		executor.start();
+		executor.supply(() -> await(release));
+		executor.supply(() -> await(release));
+		AtomicInteger runs = new AtomicInteger();
+
+		assertThatThrownBy(() -> executor.supply(runs::incrementAndGet).get())
+				.hasCauseInstanceOf(AdaptorExecutor.AdaptorTimeoutException.class);
+		release.countDown();
+		executor.timeout = Duration.ofSeconds(5);
+
+		assertThat(executor.supply(() -> "next").get()).isEqualTo("next");
+		assertThat(runs).hasValue(0);
+	}
+
+	@Test
+	void fullQueueIsTurnedAway() {
+		executor.supply(() -> await(release));
+		executor.supply(() -> await(release));
+		executor.supply(() -> await(release));
+
+		assertThatThrownBy(() -> executor.supply(() -> "rejected").get())
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(AdaptorExecutor.AdaptorBusyException.class);
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return true;
+	}
+}
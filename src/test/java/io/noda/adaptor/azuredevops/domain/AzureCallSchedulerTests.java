@@ -0,0 +1,127 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AzureCallSchedulerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private AzureCallScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = new AzureCallScheduler();
+		scheduler.maxConcurrent = 2;
+		scheduler.ratePerSecond = 1000;
+		scheduler.burst = 100;
+		scheduler.maxAttempts = 3;
+		scheduler.initialBackoff = Duration.ofMillis(1);
+		scheduler.maxBackoff = Duration.ofMillis(5);
+		scheduler.queueTimeout = Duration.ofSeconds(1);
+		scheduler.failureThreshold = 3;
+		scheduler.openFor = Duration.ofMinutes(1);
+		scheduler.meterRegistry = meterRegistry;
+	}
+
+	@Test
+	void throttledCallsAreRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		String result = scheduler.call("noda", "test", () -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new IllegalStateException("Status code: 429 TooManyRequests");
+			}
+			return "done";
+		});
+
+		assertThat(result).isEqualTo("done");
+		assertThat(meterRegistry.get("azure.calls.throttled").counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("azure.calls.retries").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void otherFailuresAreNotRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatThrownBy(() -> scheduler.call("noda", "test", () -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException("Status code: 401 Unauthorized");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	void openCircuitFailsFastWithoutCallingAzure() {
+		AtomicInteger attempts = new AtomicInteger();
+		AzureCallScheduler.AzureCall<String> failing = () -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException("503 Service Unavailable");
+		};
+
+		assertThatThrownBy(() -> scheduler.call("noda", "test", failing)).isInstanceOf(AzureCallScheduler.AzureUnavailableException.class);
+		assertThatThrownBy(() -> scheduler.call("noda", "test", () -> "ok")).isInstanceOf(AzureCallScheduler.AzureUnavailableException.class);
+
+		assertThat(attempts).hasValue(3);
+		assertThat(meterRegistry.get("azure.calls.circuit.open").gauge().value()).isEqualTo(1);
+		assertThat(meterRegistry.get("azure.calls.rejected").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void failedTrialOnItsLastAttemptReopensTheCircuit() throws Exception {
+		scheduler.maxAttempts = 1;
+		scheduler.failureThreshold = 1;
+		scheduler.openFor = Duration.ofMillis(20);
+		AzureCallScheduler.AzureCall<String> failing = () -> {
+			throw new IllegalStateException("Status code: 503");
+		};
+
+		assertThatThrownBy(() -> scheduler.call("noda", "test", failing)).isInstanceOf(AzureCallScheduler.AzureUnavailableException.class);
+		Thread.sleep(40);
+		assertThatThrownBy(() -> scheduler.call("noda", "test", failing)).isInstanceOf(AzureCallScheduler.AzureUnavailableException.class);
+		assertThat(scheduler.isOpen("noda")).isTrue();
+
+		// The failed trial was settled, so the next trial is let through once the circuit may close again.
+		Thread.sleep(40);
+		assertThat(scheduler.call("noda", "test", () -> "ok")).isEqualTo("ok");
+		assertThat(scheduler.isOpen("noda")).isFalse();
+	}
+
+	@Test
+	void retryAfterIsCappedAtTheMaximumBackoff() {
+		AtomicInteger attempts = new AtomicInteger();
+		long start = System.nanoTime();
+
+		String result = scheduler.call("noda", "test", () -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("429 TooManyRequests, Retry-After: 99999");
+			}
+			return "done";
+		});
+
+		assertThat(result).isEqualTo("done");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void onlyServerErrorStatusesAreTransient() {
+		assertThat(AzureCallScheduler.isTransient(new IllegalStateException("Status code: 502"))).isTrue();
+		assertThat(AzureCallScheduler.isTransient(new IllegalStateException("503 Service Unavailable"))).isTrue();
+		assertThat(AzureCallScheduler.isTransient(new IllegalStateException("Work item 500 does not exist"))).isFalse();
+		assertThat(AzureCallScheduler.isTransient(new IllegalStateException("Field System.Timeout is not defined"))).isFalse();
+	}
+
+	@Test
+	void retryAfterIsReadFromTheFailure() {
+		assertThat(AzureCallScheduler.retryAfter(new IllegalStateException("429, Retry-After: 7"))).isEqualTo(Duration.ofSeconds(7));
+		assertThat(AzureCallScheduler.retryAfter(new IllegalStateException("429"))).isNull();
+	}
+}
@@ -0,0 +1,41 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentVersionsTests {
+
+	@Test
+	void equalContentKeepsItsVersion() {
+		ContentVersions versions = new ContentVersions();
+		ContentVersion<List<String>> first = versions.track("teams", List.of("Alpha", "Beta"));
+
+		ContentVersion<List<String>> again = versions.track("teams", new ArrayList<>(List.of("Alpha", "Beta")));
+
+		assertThat(again.tag()).isEqualTo(first.tag());
+		assertThat(again.lastModified()).isEqualTo(first.lastModified());
+	}
+
+	@Test
+	void changedContentGetsANewVersion() {
+		ContentVersions versions = new ContentVersions();
+		ContentVersion<List<String>> first = versions.track("teams", List.of("Alpha"));
+
+		ContentVersion<List<String>> changed = versions.track("teams", List.of("Alpha", "Beta"));
+
+		assertThat(changed.tag()).isNotEqualTo(first.tag());
+		assertThat(changed.value()).containsExactly("Alpha", "Beta");
+	}
+
+	@Test
+	void keysAreVersionedApart() {
+		ContentVersions versions = new ContentVersions();
+
+		assertThat(versions.track("teams", List.of("Alpha")).tag())
+				.isNotEqualTo(versions.track("projects", List.of("Alpha")).tag());
+	}
+}
@@ -0,0 +1,85 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.MapNode;
+import io.noda.adaptor.common.model.MapPatchPlan;
+import io.noda.adaptor.common.model.NodeLayout;
+import io.noda.adaptor.common.model.NodeLink;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapPatchPlannerTests {
+
+	@Test
+	void withoutRenderedStateEveryNodeIsCreated() {
+		NodeLayout current = layout(item(1, null, WorkItemState.BACKLOG, "2"), item(2, "1", WorkItemState.BACKLOG));
+
+		MapPatchPlan plan = MapPatchPlanner.plan(null, "stale", current, "v1");
+
+		assertThat(plan.isFull()).isTrue();
+		assertThat(plan.getSinceTag()).isNull();
+		assertThat(plan.getTag()).isEqualTo("v1");
+		assertThat(plan.getCreate()).extracting(node -> node.getItem().getId()).containsExactly("1", "2");
+		assertThat(plan.getAddLinks()).containsExactly(new NodeLink("1", "2"));
+	}
+
+	@Test
+	void stateChangesAreUpdatesOnly() {
+		NodeLayout rendered = layout(item(1, null, WorkItemState.BACKLOG, "2", "3", "4"),
+				item(2, "1", WorkItemState.BACKLOG), item(3, "1", WorkItemState.BACKLOG), item(4, "1", WorkItemState.BACKLOG));
+		NodeLayout current = layout(item(1, null, WorkItemState.BACKLOG, "2", "3", "4"),
+				item(2, "1", WorkItemState.IN_PROGRESS), item(3, "1", WorkItemState.BACKLOG), item(4, "1", WorkItemState.IN_PROGRESS));
+
+		MapPatchPlan plan = MapPatchPlanner.plan(rendered, "v1", current, "v2");
+
+		assertThat(plan.isFull()).isFalse();
+		assertThat(plan.getCreate()).isEmpty();
+		assertThat(plan.getDelete()).isEmpty();
+		assertThat(plan.getUpdate()).extracting(MapNode::getItem).extracting(WorkItem::getId).containsExactly("2", "4");
+		assertThat(plan.getRemoveLinks()).containsExactly(new NodeLink("1", "2"), new NodeLink("1", "4"));
+		assertThat(plan.getAddLinks()).containsExactly(new NodeLink("1", "2"), new NodeLink("1", "4"));
+	}
+
+	@Test
+	void removedItemsDeleteTheirNodesAndLinks() {
+		NodeLayout rendered = layout(item(1, null, WorkItemState.BACKLOG, "2"), item(2, "1", WorkItemState.BACKLOG), item(3, null, WorkItemState.BACKLOG));
+		NodeLayout current = layout(item(1, null, WorkItemState.BACKLOG), item(3, null, WorkItemState.BACKLOG));
+
+		MapPatchPlan plan = MapPatchPlanner.plan(rendered, "v1", current, "v2");
+
+		assertThat(plan.getDelete()).containsExactly("2");
+		assertThat(plan.getRemoveLinks()).containsExactly(new NodeLink("1", "2"));
+		assertThat(plan.getAddLinks()).isEmpty();
+	}
+
+	private NodeLayout layout(WorkItem... items) {
+		Map<String, WorkItem> itemMap = new LinkedHashMap<>();
+		for (WorkItem item : items) {
+			itemMap.put(item.getId(), item);
+		}
+		WorkItemResults results = new WorkItemResults();
+		results.setWorkItems(new ArrayList<>(itemMap.values()));
+		results.setWorkPaths(WorkTreeBuilder.build(itemMap));
+		return NodeLayoutEngine.layout(results, NodeLayoutEngine.Spacing.DEFAULT);
+	}
+
+	private WorkItem item(int id, String parent, WorkItemState state, String... children) {
+		return WorkItem.builder()
+				.id(Integer.toString(id))
+				.parent(parent)
+				.name("Item " + id)
+				.type(WorkItemType.STORY)
+				.state(state)
+				.children(new ArrayList<>(List.of(children)))
+				.build();
+	}
+}
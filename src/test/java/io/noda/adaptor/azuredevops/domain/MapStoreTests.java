@@ -0,0 +1,93 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MapStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private final List<MapVersion> saved = new ArrayList<>();
+
+	private MapStore store;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		MapVersionRepository repository = mock(MapVersionRepository.class);
+		when(repository.save(any())).thenAnswer(invocation -> {
+			saved.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+		when(repository.findFirstByTeamAndSprintOrderByVersionDesc(anyString(), anyString())).thenAnswer(invocation -> saved.stream()
+				.filter(version -> version.getTeam().equals(invocation.getArgument(0)) && version.getSprint().equals(invocation.getArgument(1)))
+				.max(Comparator.comparingInt(MapVersion::getVersion)));
+
+		store = new MapStore();
+		store.directory = directory;
+		store.maximumSize = DataSize.ofBytes(64);
+		store.repository = repository;
+		store.createDirectory();
+	}
+
+	@Test
+	void distinctMapsGetTheNextVersion() throws Exception {
+		MapVersion first = store.save("team", "sprint", body("{\"nodes\":[1]}"));
+		MapVersion second = store.save("team", "sprint", body("{\"nodes\":[1,2]}"));
+
+		assertThat(first.getVersion()).isEqualTo(1);
+		assertThat(second.getVersion()).isEqualTo(2);
+		assertThat(Files.readString(store.contentFile(second.getHash()))).isEqualTo("{\"nodes\":[1,2]}");
+	}
+
+	@Test
+	void unchangedMapKeepsTheLatestVersion() {
+		MapVersion first = store.save("team", "sprint", body("{\"nodes\":[1]}"));
+		MapVersion again = store.save("team", "sprint", body("{\"nodes\":[1]}"));
+
+		assertThat(again).isSameAs(first);
+		assertThat(saved).hasSize(1);
+	}
+
+	@Test
+	void identicalContentIsStoredOnce() throws Exception {
+		store.save("team", "sprint 1", body("{\"nodes\":[1]}"));
+		store.save("team", "sprint 2", body("{\"nodes\":[1]}"));
+
+		try (var files = Files.list(directory)) {
+			assertThat(files).hasSize(1);
+		}
+	}
+
+	@Test
+	void oversizedMapIsRejectedAndNotKept() throws Exception {
+		assertThatThrownBy(() -> store.save("team", "sprint", body("x".repeat(65))))
+				.isInstanceOf(MapStore.MapTooLargeException.class);
+
+		assertThat(saved).isEmpty();
+		try (var files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	private static ByteArrayResource body(String json) {
+		return new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,86 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.NodeLayout;
+import io.noda.adaptor.common.model.NodeLink;
+import io.noda.adaptor.common.model.NodePosition;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeLayoutEngineTests {
+
+	private static final NodeLayoutEngine.Spacing UNIT = new NodeLayoutEngine.Spacing(1.0, 0.5, 0.25);
+
+	@Test
+	void leavesSpreadOverTheBottomRowAndParentsAreCentred() {
+		NodeLayout layout = NodeLayoutEngine.layout(results(item(1, null, "2", "3"), item(2, "1"), item(3, "1", "4"), item(4, "3")), UNIT);
+
+		// Rows: [1], [2, 3], [P2-L2, 4]; the place holder gives leaf 2 its slot on the bottom row.
+		assertThat(layout.getNodes()).containsExactlyInAnyOrder(
+				new NodePosition("1", -0.5, 0.0, -0.25),
+				new NodePosition("2", -1.0, -0.5, -0.25),
+				new NodePosition("3", 0.0, -0.5, -0.25),
+				new NodePosition("4", 0.0, -1.0, -0.25));
+		assertThat(layout.getLinks()).containsExactly(new NodeLink("1", "2"), new NodeLink("1", "3"), new NodeLink("3", "4"));
+	}
+
+	@Test
+	void rowsRunAcrossTrees() {
+		NodeLayout layout = NodeLayoutEngine.layout(results(item(1, null), item(2, null)), UNIT);
+
+		assertThat(layout.getNodes()).extracting(NodePosition::getX).containsExactly(-1.0, 0.0);
+	}
+
+	@Test
+	void largeDatasetsArePlacedPerTreeAgainstTheSharedRows() {
+		List<WorkItem> items = new ArrayList<>();
+		for (int root = 1; root <= 600; root++) {
+			int base = root * 10;
+			items.add(item(base, null, Integer.toString(base + 1), Integer.toString(base + 2)));
+			items.add(item(base + 1, Integer.toString(base), Integer.toString(base + 3)));
+			items.add(item(base + 2, Integer.toString(base)));
+			items.add(item(base + 3, Integer.toString(base + 1)));
+		}
+		WorkItemResults results = results(items.toArray(new WorkItem[0]));
+
+		NodeLayout layout = NodeLayoutEngine.layout(results, UNIT);
+
+		// The bottom row holds two slots per tree, 1200 in all.
+		Map<String, Double> x = new LinkedHashMap<>();
+		layout.getNodes().forEach(node -> x.put(node.getId(), node.getX()));
+		assertThat(layout.getNodes()).hasSize(items.size());
+		assertThat(x).containsEntry("13", -600.0).containsEntry("12", -599.0).containsEntry("10", -599.5);
+		assertThat(x).containsEntry("6003", -2.0).containsEntry("6002", -1.0).containsEntry("6000", -1.5);
+	}
+
+	private WorkItemResults results(WorkItem... items) {
+		Map<String, WorkItem> itemMap = new LinkedHashMap<>();
+		for (WorkItem item : items) {
+			itemMap.put(item.getId(), item);
+		}
+		WorkItemResults results = new WorkItemResults();
+		results.setWorkItems(new ArrayList<>(itemMap.values()));
+		results.setWorkPaths(WorkTreeBuilder.build(itemMap));
+		return results;
+	}
+
+	private WorkItem item(int id, String parent, String... children) {
+		return WorkItem.builder()
+				.id(Integer.toString(id))
+				.parent(parent)
+				.name("Item " + id)
+				.type(WorkItemType.STORY)
+				.state(WorkItemState.BACKLOG)
+				.children(new ArrayList<>(List.of(children)))
+				.build();
+	}
+}
@@ -0,0 +1,68 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.PortfolioScope;
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemResults;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortfolioAggregatorTests {
+
+	@Test
+	void sharedParentCarriesTheChildrenOfEveryScope() {
+		WorkItemResults teamA = results(item(1, null, "2"), item(2, "1"));
+		WorkItemResults teamB = results(item(1, null, "3"), item(3, "1"));
+
+		WorkItemResults merged = PortfolioAggregator.merge(List.of(teamA, teamB));
+
+		assertThat(merged.getWorkItems()).extracting(WorkItem::getId).containsExactly("1", "2", "3");
+		assertThat(merged.getWorkItems().get(0).getChildren()).containsExactly("2", "3");
+		assertThat(merged.getWorkPaths()).singleElement().satisfies(tree -> assertThat(tree.getChildren()).hasSize(2));
+	}
+
+	@Test
+	void itemIsLinkedToAParentFromAnotherScope() {
+		WorkItemResults teamA = results(item(1, null));
+		WorkItemResults teamB = results(item(2, "1", "3"), item(3, "2"));
+
+		WorkItemResults merged = PortfolioAggregator.merge(List.of(teamA, teamB));
+
+		assertThat(merged.getWorkItems().get(0).getChildren()).containsExactly("2");
+		assertThat(merged.getWorkPaths()).singleElement().satisfies(tree -> assertThat(tree.getExternalId()).isEqualTo("1"));
+	}
+
+	@Test
+	void scopeWithoutSprintOrQueryIsRejected() {
+		PortfolioAggregator aggregator = new PortfolioAggregator();
+		aggregator.maximumScopes = 50;
+
+		assertThatThrownBy(() -> aggregator.load(List.of(PortfolioScope.builder().team("Noda Team").build())))
+				.isInstanceOf(PortfolioAggregator.InvalidPortfolioException.class);
+		assertThatThrownBy(() -> aggregator.load(List.of()))
+				.isInstanceOf(PortfolioAggregator.InvalidPortfolioException.class);
+	}
+
+	private WorkItemResults results(WorkItem... items) {
+		WorkItemResults results = new WorkItemResults();
+		results.setWorkItems(new ArrayList<>(List.of(items)));
+		return results;
+	}
+
+	private WorkItem item(int id, String parent, String... children) {
+		return WorkItem.builder()
+				.id(Integer.toString(id))
+				.parent(parent)
+				.name("Item " + id)
+				.type(WorkItemType.STORY)
+				.state(WorkItemState.BACKLOG)
+				.children(new ArrayList<>(List.of(children)))
+				.build();
+	}
+}
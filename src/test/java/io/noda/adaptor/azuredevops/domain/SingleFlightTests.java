@@ -0,0 +1,70 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+	@Test
+	void concurrentCallersShareOneExecution() throws Exception {
+		SingleFlight singleFlight = new SingleFlight();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executions = new AtomicInteger();
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+			executions.incrementAndGet();
+			await(release);
+			return "result";
+		}));
+		while (singleFlight.getInFlightCount() == 0) {
+			Thread.onSpinWait();
+		}
+
+		AtomicReference<String> followerResult = new AtomicReference<>();
+		Thread follower = new Thread(() -> followerResult.set(singleFlight.execute("key", () -> {
+			executions.incrementAndGet();
+			return "other";
+		})));
+		follower.start();
+		// The follower only parks once it joined the leader's flight.
+		while (follower.getState() != Thread.State.WAITING) {
+			assertThat(follower.isAlive()).isTrue();
+			Thread.onSpinWait();
+		}
+
+		release.countDown();
+		follower.join(5000);
+
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+		assertThat(followerResult.get()).isEqualTo("result");
+		assertThat(executions.get()).isEqualTo(1);
+		assertThat(singleFlight.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void failuresPropagateAndAreNotKept() {
+		SingleFlight singleFlight = new SingleFlight();
+
+		assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+			throw new IllegalStateException("throttled");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(singleFlight.execute("key", () -> "recovered")).isEqualTo("recovered");
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
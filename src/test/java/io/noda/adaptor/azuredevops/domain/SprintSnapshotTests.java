@@ -0,0 +1,135 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkItemDelta;
+import io.noda.adaptor.common.model.WorkItemState;
+import io.noda.adaptor.common.model.WorkItemType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SprintSnapshotTests {
+
+	@Test
+	void firstPatchProducesFullVersion() {
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+
+		assertThat(snapshot.patch(new int[] { 1, 2, 3 }, List.of(item(1, null), item(2, "1"), item(3, "1")), true, Instant.now())).isTrue();
+
+		assertThat(snapshot.getVersion()).isEqualTo(1);
+		assertThat(snapshot.toResults().getWorkPaths()).hasSize(1);
+		assertThat(snapshot.toResults().getWorkItems().get(0).getChildren()).containsExactly("2", "3");
+	}
+
+	@Test
+	void unchangedPatchKeepsVersion() {
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		snapshot.patch(new int[] { 1, 2 }, List.of(item(1, null), item(2, "1")), true, Instant.now());
+
+		assertThat(snapshot.patch(new int[] { 1, 2 }, List.of(item(2, "1")), true, Instant.now())).isFalse();
+		assertThat(snapshot.getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void versionTagChangesOnlyWithTheItems() {
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		snapshot.patch(new int[] { 1, 2 }, List.of(item(1, null), item(2, "1")), true, Instant.now());
+		String tag = snapshot.toVersionedResults().tag();
+
+		snapshot.patch(new int[] { 1, 2 }, List.of(item(2, "1")), true, Instant.now());
+		assertThat(snapshot.toVersionedResults().tag()).isEqualTo(tag);
+
+		snapshot.patch(new int[] { 1 }, List.of(), true, Instant.now());
+		assertThat(snapshot.toVersionedResults().tag()).isNotEqualTo(tag);
+	}
+
+	@Test
+	void ancestorsPatchedWithTheSprintCompleteTheTree() {
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		snapshot.patch(new int[] { 2, 3, 1 }, List.of(item(2, "1"), item(3, "1"), item(1, null)), true, Instant.now());
+
+		assertThat(snapshot.getItem("1").getChildren()).containsExactly("2", "3");
+		assertThat(snapshot.toResults().getWorkPaths()).singleElement().extracting(tree -> tree.getExternalId()).isEqualTo("1");
+		assertThat(snapshot.getItem("4")).isNull();
+	}
+
+	@Test
+	void changesSinceReturnsOnlyTouchedItems() {
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		snapshot.patch(new int[] { 1, 2, 3, 4 }, List.of(item(1, null), item(2, "1"), item(3, "1"), item(4, null)), true, Instant.now());
+		String tag = snapshot.getTag();
+
+		WorkItem moved = item(3, "1").toBuilder().state(WorkItemState.IN_PROGRESS).build();
+		snapshot.patch(new int[] { 1, 2, 3 }, List.of(moved), true, Instant.now());
+
+		WorkItemDelta delta = snapshot.changesSince(tag);
+		assertThat(delta.isFull()).isFalse();
+		assertThat(delta.getTag()).isEqualTo(snapshot.getTag());
+		assertThat(delta.getChanged()).containsExactly(moved);
+		assertThat(delta.getRemoved()).containsExactly("4");
+		assertThat(delta.getRemovedPaths()).containsExactly("4");
+		assertThat(delta.getWorkPaths()).isEmpty();
+	}
+
+	@Test
+	void unknownVersionReturnsFullDataset() {
+		SprintSnapshot snapshot = new SprintSnapshot(1);
+		snapshot.patch(new int[] { 1 }, List.of(item(1, null)), true, Instant.now());
+		String tag = snapshot.getTag();
+		snapshot.patch(new int[] { 1, 2 }, List.of(item(2, "1")), true, Instant.now());
+		snapshot.patch(new int[] { 1, 2, 3 }, List.of(item(3, "1")), true, Instant.now());
+
+		WorkItemDelta delta = snapshot.changesSince(tag);
+		assertThat(delta.isFull()).isTrue();
+		assertThat(delta.getChanged()).hasSize(3);
+	}
+
+	@Test
+	void tagOfAnEarlierLineageReturnsFullDataset() {
+		SprintSnapshot previous = new SprintSnapshot(10);
+		previous.patch(new int[] { 1 }, List.of(item(1, null)), true, Instant.now());
+
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		snapshot.patch(new int[] { 1 }, List.of(item(1, null)), true, Instant.now());
+		snapshot.patch(new int[] { 1, 2 }, List.of(item(2, "1")), true, Instant.now());
+
+		WorkItemDelta delta = snapshot.changesSince(previous.getTag());
+		assertThat(delta.isFull()).isTrue();
+		assertThat(delta.getSinceTag()).isNull();
+		assertThat(delta.getChanged()).hasSize(2);
+		assertThat(snapshot.changesSince("W/\"" + snapshot.getTag() + "\"").getChanged()).isEmpty();
+	}
+
+	@Test
+	void restoredSnapshotKeepsStoredWatermarkUntilSynchronised() {
+		SprintSnapshot stored = new SprintSnapshot(10);
+		stored.patch(new int[] { 1, 2 }, List.of(item(1, null), item(2, "1")), true, Instant.now());
+
+		SprintSnapshot snapshot = new SprintSnapshot(10);
+		Instant watermark = Instant.parse("2026-10-01T08:00:00Z");
+		snapshot.restore(stored.toResults().getWorkItems(), watermark);
+
+		assertThat(snapshot.isRestored()).isTrue();
+		assertThat(snapshot.getWatermark()).isEqualTo(watermark);
+		assertThat(snapshot.toResults().getWorkPaths()).hasSize(1);
+		assertThat(snapshot.getIdsToFetch(new int[] { 1, 2, 3 }, new int[] { 2 })).containsExactly(2, 3);
+
+		snapshot.patch(new int[] { 1, 2 }, List.of(), true, Instant.now());
+		assertThat(snapshot.isRestored()).isFalse();
+	}
+
+	private WorkItem item(int id, String parent) {
+		return WorkItem.builder()
+				.id(Integer.toString(id))
+				.parent(parent)
+				.name("Item " + id)
+				.type(WorkItemType.STORY)
+				.state(WorkItemState.BACKLOG)
+				.children(new ArrayList<>())
+				.build();
+	}
+}
@@ -0,0 +1,80 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.noda.adaptor.common.model.WorkItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkItemEntityCacheTests {
+
+	private final WorkItemProjection fields = WorkItemProjection.modelFields();
+
+	private WorkItemEntityCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new WorkItemEntityCache();
+		cache.maximumWeight = DataSize.ofMegabytes(1);
+		cache.revalidateAfter = Duration.ZERO;
+		cache.meterRegistry = new SimpleMeterRegistry();
+		cache.buildCache();
+	}
+
+	@Test
+	void sameRevisionServesTheCachedItem() {
+		WorkItem item = item(1);
+		cache.put(1, fields, 7, item);
+
+		assertThat(cache.isFresh(cache.get(1, fields))).isFalse();
+		assertThat(cache.atRevision(1, fields, 7)).isSameAs(item);
+	}
+
+	@Test
+	void newerRevisionIsAMiss() {
+		cache.put(1, fields, 7, item(1));
+
+		assertThat(cache.atRevision(1, fields, 8)).isNull();
+	}
+
+	@Test
+	void bumpedRevisionIsServedOnceReFetched() {
+		cache.put(1, fields, 7, item(1));
+		assertThat(cache.atRevision(1, fields, 8)).isNull();
+
+		WorkItem refetched = item(1);
+		cache.put(1, fields, 8, refetched);
+
+		assertThat(cache.atRevision(1, fields, 8)).isSameAs(refetched);
+		assertThat(cache.atRevision(1, fields, 7)).isNull();
+	}
+
+	@Test
+	void projectionsAreCachedApart() {
+		cache.put(1, fields, 7, item(1));
+
+		assertThat(cache.get(1, WorkItemProjection.of(null, true))).isNull();
+		assertThat(cache.get(1, WorkItemProjection.modelFields())).isNotNull();
+	}
+
+	@Test
+	void recentlyCheckedEntriesAreFresh() {
+		cache.revalidateAfter = Duration.ofMinutes(1);
+		cache.put(1, fields, 7, item(1));
+
+		assertThat(cache.isFresh(cache.get(1, fields))).isTrue();
+	}
+
+	private WorkItem item(int id) {
+		return WorkItem.builder()
+				.id(Integer.toString(id))
+				.name("Item " + id)
+				.children(new ArrayList<>())
+				.build();
+	}
+}
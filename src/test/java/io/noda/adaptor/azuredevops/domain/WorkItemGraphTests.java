@@ -0,0 +1,35 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkItemGraphTests {
+
+	@Test
+	void lastListingItemClaimsChild() {
+		WorkItemGraph graph = WorkItemGraph.of(List.of(item("10", "30", "99"), item("20", "30", "30"), item("30")));
+
+		assertThat(graph.parentOf(graph.indexOf("30"))).isEqualTo(graph.indexOf("20"));
+		assertThat(graph.childCount(graph.indexOf("10"))).isZero();
+		assertThat(graph.childCount(graph.indexOf("20"))).isEqualTo(1);
+		assertThat(graph.indexOf("99")).isEqualTo(WorkItemGraph.NONE);
+		assertThat(graph.roots()).containsExactly(graph.indexOf("10"), graph.indexOf("20"));
+	}
+
+	@Test
+	void itemsInCycleHaveNoRoot() {
+		WorkItemGraph graph = WorkItemGraph.of(List.of(item("1", "2"), item("2", "1"), item("3", "4"), item("4")));
+
+		assertThat(graph.rootOf(graph.indexOf("2"))).isEqualTo(WorkItemGraph.NONE);
+		assertThat(graph.rootOf(graph.indexOf("4"))).isEqualTo(graph.indexOf("3"));
+		assertThat(graph.roots()).containsExactly(graph.indexOf("3"), graph.indexOf("1"));
+	}
+
+	private static WorkItem item(String id, String... children) {
+		return WorkItem.builder().id(id).children(List.of(children)).build();
+	}
+}
@@ -0,0 +1,29 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkItemMapperTests {
+
+	@Test
+	void parsesTrailingWorkItemId() {
+		assertThat(WorkItemMapper.parseTrailingId("https://dev.azure.com/noda/8c2b5a1e-6f1d-4c2a-9d7e-1f0a3b4c5d6e/_apis/wit/workItems/20124")).isEqualTo(20124);
+		assertThat(WorkItemMapper.parseTrailingId("https://dev.azure.com/noda/_apis/wit/workItems/7/")).isEqualTo(7);
+	}
+
+	@Test
+	void rejectsUrlsWithoutId() {
+		assertThat(WorkItemMapper.parseTrailingId("https://dev.azure.com/noda/_apis/wit/workItems/")).isEqualTo(WorkItemMapper.NO_ID);
+		assertThat(WorkItemMapper.parseTrailingId("https://dev.azure.com/noda/_apis/wit/workItems/99999999999")).isEqualTo(WorkItemMapper.NO_ID);
+		assertThat(WorkItemMapper.parseTrailingId(null)).isEqualTo(WorkItemMapper.NO_ID);
+	}
+
+	@Test
+	void missingRelationsHaveNoHierarchy() {
+		WorkItemMapper.Hierarchy hierarchy = WorkItemMapper.readHierarchy(null);
+
+		assertThat(hierarchy.parentId()).isNull();
+		assertThat(hierarchy.childIds()).isEmpty();
+	}
+}
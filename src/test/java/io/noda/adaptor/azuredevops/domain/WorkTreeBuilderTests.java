@@ -0,0 +1,82 @@
+package io.noda.adaptor.azuredevops.domain;
+
+import io.noda.adaptor.common.model.WorkItem;
+import io.noda.adaptor.common.model.WorkTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkTreeBuilderTests {
+
+	@Test
+	void shallowLeavesArePaddedToTreeDepth() {
+		Map<String, WorkItem> items = items(item("1", "2", "3"), item("2", "4"), item("3"), item("4"));
+
+		List<WorkTree> trees = WorkTreeBuilder.build(items);
+
+		assertThat(trees).hasSize(1);
+		WorkTree shallow = trees.get(0).getChildren().get(1);
+		assertThat(shallow.getExternalId()).isEqualTo("3");
+		assertThat(shallow.getChildren()).hasSize(1);
+		WorkTree pad = shallow.getChildren().get(0);
+		assertThat(pad.getExternalId()).isEqualTo("P3-L2");
+		assertThat(pad.getParentId()).isEqualTo("3");
+		assertThat(pad.getLevel()).isEqualTo(2);
+		assertThat(pad.getChildren()).isEmpty();
+	}
+
+	@Test
+	void paddingChainReachesTheTreeDepthOnEveryRead() {
+		Map<String, WorkItem> items = items(item("1", "2", "3"), item("2", "4"), item("3"), item("4", "5"), item("5"));
+
+		WorkTree shallow = WorkTreeBuilder.build(items).get(0).getChildren().get(1);
+
+		WorkTree first = shallow.getChildren().get(0);
+		assertThat(first.getExternalId()).isEqualTo("P3-L2");
+		assertThat(first.getChildren()).extracting(WorkTree::getExternalId).containsExactly("P3-L3");
+		assertThat(first.getChildren().get(0).getChildren()).isEmpty();
+		assertThat(shallow.getChildren().get(0)).isEqualTo(first);
+	}
+
+	@Test
+	void cyclicLinksAreBuiltOnce() {
+		Map<String, WorkItem> items = items(item("1", "2"), item("2", "3"), item("3", "1"), item("4"));
+
+		List<WorkTree> trees = WorkTreeBuilder.build(items);
+
+		assertThat(trees).extracting(WorkTree::getExternalId).containsExactly("4", "1");
+		WorkTree cycle = trees.get(1);
+		assertThat(cycle.getChildren()).extracting(WorkTree::getExternalId).containsExactly("2");
+		assertThat(cycle.getChildren().get(0).getChildren()).extracting(WorkTree::getExternalId).containsExactly("3");
+		assertThat(cycle.getChildren().get(0).getChildren().get(0).getChildren()).isEmpty();
+	}
+
+	@Test
+	void deepChainDoesNotOverflow() {
+		Map<String, WorkItem> items = new LinkedHashMap<>();
+		int depth = 50_000;
+		for (int i = 0; i < depth; i++) {
+			items.put(Integer.toString(i), i + 1 < depth ? item(Integer.toString(i), Integer.toString(i + 1)) : item(Integer.toString(i)));
+		}
+
+		List<WorkTree> trees = WorkTreeBuilder.build(items);
+
+		assertThat(trees).hasSize(1);
+	}
+
+	private static Map<String, WorkItem> items(WorkItem... workItems) {
+		Map<String, WorkItem> items = new LinkedHashMap<>();
+		for (WorkItem item : workItems) {
+			items.put(item.getId(), item);
+		}
+		return items;
+	}
+
+	private static WorkItem item(String id, String... children) {
+		return WorkItem.builder().id(id).children(List.of(children)).build();
+	}
+}